@@ -0,0 +1,42 @@
+package com.ecommerce.orderservice.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Records the latency of every call to one downstream as {@code downstream.requests}, tagged with the
+ * downstream name and response status ({@code IO_ERROR} when no response arrived).
+ */
+public class DownstreamMetricsInterceptor implements ClientHttpRequestInterceptor {
+    private final String downstream;
+    private final MeterRegistry meterRegistry;
+
+    public DownstreamMetricsInterceptor(String downstream, MeterRegistry meterRegistry) {
+        this.downstream = downstream;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String status = "IO_ERROR";
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            status = String.valueOf(response.getStatusCode().value());
+            return response;
+        } finally {
+            sample.stop(Timer.builder("downstream.requests")
+                    .tag("downstream", downstream)
+                    .tag("status", status)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ecommerce.orderservice.client;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Guards every call to one downstream: retries with jittered exponential backoff around a bulkhead
+ * around a circuit breaker. Retries happen outside the bulkhead so a backing-off call does not hold a
+ * permit, and a call rejected by the open breaker or a full bulkhead is never retried.
+ */
+public class DownstreamPolicy {
+    private final RetryTemplate retryTemplate;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    public DownstreamPolicy(RetryTemplate retryTemplate, Bulkhead bulkhead, CircuitBreaker circuitBreaker) {
+        this.retryTemplate = retryTemplate;
+        this.bulkhead = bulkhead;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public <T> T call(Supplier<T> call) {
+        Supplier<T> guarded = Bulkhead.decorateSupplier(bulkhead, CircuitBreaker.decorateSupplier(circuitBreaker, call));
+        return retryTemplate.execute(context -> guarded.get());
+    }
+
+    public void run(Runnable call) {
+        call(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return circuitBreaker.getState();
+    }
+}
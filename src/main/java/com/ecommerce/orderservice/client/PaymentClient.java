@@ -0,0 +1,77 @@
+package com.ecommerce.orderservice.client;
+
+import com.ecommerce.orderservice.service.TokenService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+
+@Component
+@Slf4j
+public class PaymentClient {
+    private final RestTemplate restTemplate;
+    private final TokenService tokenService;
+    private final DownstreamPolicy policy;
+    private final String paymentServiceUrl;
+
+    public PaymentClient(
+            @Qualifier("paymentRestTemplate") RestTemplate restTemplate,
+            TokenService tokenService,
+            @Qualifier("paymentPolicy") DownstreamPolicy policy,
+            @Value("${order.payment-service.url}") String paymentServiceUrl
+    ) {
+        this.restTemplate = restTemplate;
+        this.tokenService = tokenService;
+        this.policy = policy;
+        this.paymentServiceUrl = paymentServiceUrl;
+    }
+
+    public void initiatePayment(String orderId, BigDecimal amount, String paymentMethod) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", tokenService.getServiceToken());
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+
+        MultiValueMap<String, String> paymentRequest = new LinkedMultiValueMap<>();
+        paymentRequest.add("orderId", orderId);
+        paymentRequest.add("amount", amount.toString());
+        paymentRequest.add("paymentMethod", paymentMethod);
+
+        HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(paymentRequest, headers);
+
+        try {
+            // The payment service keys payments by orderId, so a retried initiation does not charge twice.
+            ResponseEntity<Void> response = policy.call(() -> restTemplate.exchange(
+                    paymentServiceUrl,
+                    HttpMethod.POST,
+                    request,
+                    Void.class
+            ));
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                log.error("Failed to initiate payment for orderId: {}. Response code: {}, Response: {}",
+                        orderId, response.getStatusCode(), response.getBody());
+                throw new IllegalStateException("Failed to initiate payment. Response code: " + response.getStatusCode());
+            }
+            log.info("Successfully initiated payment for orderId: {}", orderId);
+        } catch (HttpClientErrorException | HttpServerErrorException e) {
+            log.error("Failed to initiate payment for orderId: {}. Status: {}, Response: {}",
+                    orderId, e.getStatusCode(), e.getResponseBodyAsString());
+            throw new IllegalStateException("Failed to initiate payment. Status: " + e.getStatusCode() + ", Response: " + e.getResponseBodyAsString(), e);
+        } catch (RestClientException e) {
+            log.error("Failed to initiate payment for orderId: {}. Error: {}", orderId, e.getMessage());
+            throw new IllegalStateException("Failed to initiate payment due to network or service error", e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.orderservice.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Product {
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private Integer stock;
+}
@@ -0,0 +1,72 @@
+package com.ecommerce.orderservice.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Short-lived, size-bounded cache of product price and metadata in front of {@link ProductGateway}.
+ * Cached entries never carry stock: stock is only ever decided by the product service when it is reserved.
+ * Entries are dropped early when the product service publishes a change on {@code PRODUCT_EVENTS}.
+ */
+@Component
+@Slf4j
+public class ProductCatalogCache {
+    private final ProductGateway productGateway;
+    private final Cache<Long, Product> cache;
+
+    public ProductCatalogCache(
+            ProductGateway productGateway,
+            MeterRegistry meterRegistry,
+            @Value("${order.product-cache.max-size:10000}") long maxSize,
+            @Value("${order.product-cache.ttl:30s}") Duration ttl
+    ) {
+        this.productGateway = productGateway;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "product-catalog");
+    }
+
+    /**
+     * Returns price and metadata for the given products, fetching only the ones not cached.
+     * Products the product service does not know, or returns without a price, are absent from the result and are
+     * not cached.
+     */
+    public Map<Long, Product> getProducts(Collection<Long> productIds) {
+        return cache.getAll(productIds, missing -> {
+            Map<Long, Product> fetched = new HashMap<>();
+            productGateway.getProducts(List.copyOf(missing)).forEach((id, product) -> {
+                if (product.getPrice() != null) {
+                    fetched.put(id, withoutStock(product));
+                }
+            });
+            return fetched;
+        });
+    }
+
+    public void invalidate(Long productId) {
+        log.debug("Invalidating cached product {}", productId);
+        cache.invalidate(productId);
+    }
+
+    private static Product withoutStock(Product product) {
+        Product copy = new Product();
+        copy.setId(product.getId());
+        copy.setName(product.getName());
+        copy.setPrice(product.getPrice());
+        return copy;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.orderservice.client;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Access to the product service. Products are looked up for a whole cart at a time, so callers pay for one
+ * round trip (or one concurrent fan-out) per cart instead of one per line; stock is adjusted per line, and
+ * {@link com.ecommerce.orderservice.service.StockReservationService} issues a cart's lines concurrently.
+ */
+public interface ProductGateway {
+
+    /**
+     * Fetches the given products. Products the product service does not know are absent from the result.
+     */
+    Map<Long, Product> getProducts(Collection<Long> productIds);
+
+    /**
+     * Applies one stock delta atomically on the product service: negative to take stock, positive to give it back.
+     *
+     * @throws com.ecommerce.orderservice.exception.InsufficientStockException if taking the stock would make it negative
+     */
+    void adjustStock(StockAdjustment adjustment);
+}
@@ -0,0 +1,153 @@
+package com.ecommerce.orderservice.client;
+
+import com.ecommerce.orderservice.exception.InsufficientStockException;
+import com.ecommerce.orderservice.service.TokenService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * {@link ProductGateway} over the product service REST API. When the product service exposes a batch
+ * lookup ({@code order.product-service.batch-endpoints=true}) a cart's products cost one request;
+ * otherwise product lookups call the single-item endpoint concurrently on {@code productServiceExecutor}.
+ * Stock is only ever changed through delta adjustments carrying an {@code Idempotency-Key}, never by
+ * writing back an absolute level. Every call goes through the product {@link DownstreamPolicy}.
+ */
+@Component
+@Slf4j
+public class RestProductGateway implements ProductGateway {
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final ParameterizedTypeReference<List<Product>> PRODUCT_LIST = new ParameterizedTypeReference<>() {
+    };
+
+    private final RestTemplate restTemplate;
+    private final TokenService tokenService;
+    private final TaskExecutor executor;
+    private final DownstreamPolicy policy;
+    private final String productServiceUrl;
+    private final boolean batchEndpoints;
+
+    public RestProductGateway(
+            @Qualifier("productRestTemplate") RestTemplate restTemplate,
+            TokenService tokenService,
+            @Qualifier("productServiceExecutor") TaskExecutor executor,
+            @Qualifier("productPolicy") DownstreamPolicy policy,
+            @Value("${order.product-service.url}") String productServiceUrl,
+            @Value("${order.product-service.batch-endpoints:false}") boolean batchEndpoints
+    ) {
+        this.restTemplate = restTemplate;
+        this.tokenService = tokenService;
+        this.executor = executor;
+        this.policy = policy;
+        this.productServiceUrl = productServiceUrl;
+        this.batchEndpoints = batchEndpoints;
+    }
+
+    @Override
+    public Map<Long, Product> getProducts(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        if (batchEndpoints) {
+            return fetchBatch(productIds);
+        }
+        Map<Long, Product> products = new HashMap<>();
+        fanOut(productIds, this::fetchProduct).forEach(product -> {
+            if (product != null) {
+                products.put(product.getId(), product);
+            }
+        });
+        return products;
+    }
+
+    @Override
+    public void adjustStock(StockAdjustment adjustment) {
+        HttpHeaders headers = authHeaders();
+        headers.set(IDEMPOTENCY_KEY_HEADER, adjustment.getIdempotencyKey());
+        try {
+            // Safe to retry: the product service applies each idempotency key once.
+            policy.run(() -> restTemplate.exchange(
+                    productServiceUrl + "/" + adjustment.getProductId() + "/stock/adjustments",
+                    HttpMethod.POST,
+                    new HttpEntity<>(Map.of("delta", adjustment.getDelta()), headers),
+                    Void.class
+            ));
+        } catch (HttpClientErrorException.Conflict e) {
+            throw new InsufficientStockException(adjustment.getProductId());
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new IllegalArgumentException("Product with ID " + adjustment.getProductId() + " not found");
+        }
+    }
+
+    private Map<Long, Product> fetchBatch(Collection<Long> productIds) {
+        String ids = StringUtils.collectionToCommaDelimitedString(productIds);
+        ResponseEntity<List<Product>> response = policy.call(() -> restTemplate.exchange(
+                productServiceUrl + "?ids=" + ids,
+                HttpMethod.GET,
+                new HttpEntity<>(authHeaders()),
+                PRODUCT_LIST
+        ));
+        Map<Long, Product> products = new HashMap<>();
+        if (response.getBody() != null) {
+            response.getBody().forEach(product -> products.put(product.getId(), product));
+        }
+        return products;
+    }
+
+    private Product fetchProduct(Long productId) {
+        try {
+            Product product = policy.call(() -> restTemplate.exchange(
+                    productServiceUrl + "/" + productId,
+                    HttpMethod.GET,
+                    new HttpEntity<>(authHeaders()),
+                    Product.class
+            )).getBody();
+            if (product != null && product.getId() == null) {
+                product.setId(productId);
+            }
+            return product;
+        } catch (HttpClientErrorException.NotFound e) {
+            log.debug("Product {} not found", productId);
+            return null;
+        }
+    }
+
+    private <T, R> List<R> fanOut(Collection<T> inputs, Function<T, R> call) {
+        List<CompletableFuture<R>> futures = inputs.stream()
+                .map(input -> CompletableFuture.supplyAsync(() -> call.apply(input), executor))
+                .toList();
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private HttpHeaders authHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", tokenService.getServiceToken());
+        return headers;
+    }
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.orderservice.client;
+
+import lombok.Value;
+
+/**
+ * A relative stock change for one product. The product service applies each idempotency key at most once,
+ * so the same adjustment can be retried safely.
+ */
+@Value
+public class StockAdjustment {
+    Long productId;
+    int delta;
+    String idempotencyKey;
+}
@@ -0,0 +1,32 @@
+package com.ecommerce.orderservice.config;
+
+import com.ecommerce.orderservice.consumer.KeyOrderedBatchProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+
+/**
+ * One lane processor per consumed topic, sharing {@code orderEventLaneExecutor}.
+ */
+@Configuration
+public class EventProcessingConfig {
+
+    @Bean
+    public KeyOrderedBatchProcessor paymentEventProcessor(
+            @Qualifier("orderEventLaneExecutor") TaskExecutor executor,
+            MeterRegistry meterRegistry,
+            @Value("${order.events.lanes:8}") int lanes) {
+        return new KeyOrderedBatchProcessor("payment", lanes, executor, meterRegistry);
+    }
+
+    @Bean
+    public KeyOrderedBatchProcessor logisticsEventProcessor(
+            @Qualifier("orderEventLaneExecutor") TaskExecutor executor,
+            MeterRegistry meterRegistry,
+            @Value("${order.events.lanes:8}") int lanes) {
+        return new KeyOrderedBatchProcessor("logistics", lanes, executor, meterRegistry);
+    }
+}
@@ -0,0 +1,141 @@
+package com.ecommerce.orderservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executors for work this service fans out itself. Request handling, {@code @Scheduled} jobs and Kafka listeners
+ * follow {@code spring.threads.virtual.enabled}; the beans here follow the same switch so that a virtual-thread
+ * deployment does not funnel everything back through a small platform pool.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Runs concurrent calls to the product service. No queue: when every thread is busy the calling
+     * request thread makes the call itself, which throttles callers instead of piling up work.
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor productServiceExecutor(
+            @Value("${order.product-service.max-concurrency:32}") int maxConcurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("product-service-");
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setQueueCapacity(0);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Virtual-thread variant: one virtual thread per call, with the same concurrency cap enforced by
+     * blocking submitters once the limit is reached.
+     */
+    @Bean("productServiceExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualProductServiceExecutor(
+            @Value("${order.product-service.max-concurrency:32}") int maxConcurrency) {
+        return virtualExecutor("product-service-", maxConcurrency);
+    }
+
+    /**
+     * Expires orders of one sweep batch in parallel. Kept apart from {@code productServiceExecutor} because each
+     * expiry itself fans out stock releases onto that executor.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor paymentExpiryExecutor(
+            @Value("${order.expiry.parallelism:8}") int parallelism,
+            @Value("${order.expiry.batch-size:200}") int batchSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("payment-expiry-");
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(batchSize);
+        executor.setAllowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Reads the chunks of an order rollup rebuild. A few threads are enough to overlap the cursor round trips; the
+     * pool stays small so the nightly rebuild does not crowd out the Mongo connections serving requests.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor rollupRebuildExecutor(
+            @Value("${order.rollups.rebuild-parallelism:4}") int parallelism,
+            @Value("${order.rollups.rebuild-chunks:32}") int chunks) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("rollup-rebuild-");
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(chunks + 1);
+        executor.setAllowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Workers of the asynchronous placement pipeline. The queue can never overflow: the pipeline only submits
+     * while it holds one of {@code workers + queue-capacity} permits, and refuses new orders otherwise. There is
+     * deliberately no caller-runs fallback, which would put the downstream calls back on the request thread.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor orderPlacementExecutor(
+            @Value("${order.placement.workers:16}") int workers,
+            @Value("${order.placement.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("order-placement-");
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Runs the lanes of payment and logistics event batches. Sized so that every listener thread of both topics
+     * can keep all of its lanes busy at once; beyond that the listener thread runs the lane itself.
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor orderEventLaneExecutor(
+            @Value("${order.events.lanes:8}") int lanes,
+            @Value("${order.events.consumer-concurrency:1}") int consumerConcurrency) {
+        int threads = 2 * consumerConcurrency * lanes;
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("order-event-lane-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(0);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    @Bean("orderEventLaneExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualOrderEventLaneExecutor() {
+        // Lanes per batch already bound the concurrency.
+        return virtualExecutor("order-event-lane-", -1);
+    }
+
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor kafkaListenerTaskExecutor() {
+        return virtualExecutor("kafka-listener-", -1);
+    }
+
+    private static SimpleAsyncTaskExecutor virtualExecutor(String threadNamePrefix, int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        return executor;
+    }
+}
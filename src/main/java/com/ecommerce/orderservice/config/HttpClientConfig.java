@@ -0,0 +1,98 @@
+package com.ecommerce.orderservice.config;
+
+import com.ecommerce.orderservice.client.DownstreamMetricsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * One pooled, timeout-bounded HTTP client per downstream, so a slow product service cannot exhaust
+ * the connections needed to reach payment or Keycloak.
+ */
+@Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
+public class HttpClientConfig {
+    public static final String PRODUCT = "product";
+    public static final String PAYMENT = "payment";
+    public static final String KEYCLOAK = "keycloak";
+
+    @Bean
+    public HttpComponentsClientHttpRequestFactory productRequestFactory(HttpClientProperties properties, MeterRegistry meterRegistry) {
+        return requestFactory(PRODUCT, properties.client(PRODUCT), meterRegistry);
+    }
+
+    @Bean
+    public HttpComponentsClientHttpRequestFactory paymentRequestFactory(HttpClientProperties properties, MeterRegistry meterRegistry) {
+        return requestFactory(PAYMENT, properties.client(PAYMENT), meterRegistry);
+    }
+
+    @Bean
+    public HttpComponentsClientHttpRequestFactory keycloakRequestFactory(HttpClientProperties properties, MeterRegistry meterRegistry) {
+        return requestFactory(KEYCLOAK, properties.client(KEYCLOAK), meterRegistry);
+    }
+
+    @Bean
+    public RestTemplate productRestTemplate(RestTemplateBuilder builder, MeterRegistry meterRegistry,
+                                            @Qualifier("productRequestFactory") HttpComponentsClientHttpRequestFactory requestFactory) {
+        return restTemplate(PRODUCT, builder, meterRegistry, requestFactory);
+    }
+
+    @Bean
+    public RestTemplate paymentRestTemplate(RestTemplateBuilder builder, MeterRegistry meterRegistry,
+                                            @Qualifier("paymentRequestFactory") HttpComponentsClientHttpRequestFactory requestFactory) {
+        return restTemplate(PAYMENT, builder, meterRegistry, requestFactory);
+    }
+
+    @Bean
+    public RestTemplate keycloakRestTemplate(RestTemplateBuilder builder, MeterRegistry meterRegistry,
+                                             @Qualifier("keycloakRequestFactory") HttpComponentsClientHttpRequestFactory requestFactory) {
+        return restTemplate(KEYCLOAK, builder, meterRegistry, requestFactory);
+    }
+
+    private static RestTemplate restTemplate(String downstream, RestTemplateBuilder builder, MeterRegistry meterRegistry,
+                                             HttpComponentsClientHttpRequestFactory requestFactory) {
+        return builder
+                .requestFactory(() -> requestFactory)
+                .additionalInterceptors(new DownstreamMetricsInterceptor(downstream, meterRegistry))
+                .build();
+    }
+
+    static HttpComponentsClientHttpRequestFactory requestFactory(String downstream, HttpClientProperties.Client client,
+                                                                 MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(client.getMaxConnections())
+                .setMaxConnPerRoute(client.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(client.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(client.getReadTimeout()))
+                        .setTimeToLive(TimeValue.of(client.getConnectionTimeToLive()))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, downstream).bindTo(meterRegistry);
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(client.getPoolTimeout()))
+                        .setResponseTimeout(Timeout.of(client.getReadTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(client.getIdleTimeout()))
+                .build();
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+}
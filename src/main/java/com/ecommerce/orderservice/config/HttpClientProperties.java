@@ -0,0 +1,32 @@
+package com.ecommerce.orderservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Connection pool and timeout settings per downstream, keyed by downstream name
+ * ({@code order.http.clients.product.read-timeout=3s}).
+ */
+@Data
+@ConfigurationProperties(prefix = "order.http")
+public class HttpClientProperties {
+    private Map<String, Client> clients = new HashMap<>();
+
+    public Client client(String name) {
+        return clients.getOrDefault(name, new Client());
+    }
+
+    @Data
+    public static class Client {
+        private int maxConnections = 50; // Caps concurrent calls to the downstream
+        private Duration connectTimeout = Duration.ofSeconds(1);
+        private Duration readTimeout = Duration.ofSeconds(5);
+        private Duration poolTimeout = Duration.ofMillis(500); // Wait for a free pooled connection
+        private Duration idleTimeout = Duration.ofSeconds(30);
+        private Duration connectionTimeToLive = Duration.ofMinutes(5);
+    }
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.orderservice.config;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Loads the JWK set before the instance reports itself ready, so the first authenticated requests do not wait on
+ * Keycloak. If Keycloak is unreachable the instance starts anyway and the first request loads the keys.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JwkSetWarmup {
+    private final JWKSource<SecurityContext> jwkSource;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadKeys() {
+        try {
+            List<JWK> keys = jwkSource.get(new JWKSelector(new JWKMatcher.Builder().build()), null);
+            log.info("Loaded {} signing keys from the JWK set", keys.size());
+        } catch (KeySourceException e) {
+            log.warn("Could not load the JWK set at startup: {}", e.getMessage());
+        }
+    }
+}
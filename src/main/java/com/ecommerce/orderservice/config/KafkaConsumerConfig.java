@@ -1,15 +1,27 @@
 package com.ecommerce.orderservice.config;
 
 import com.ecommerce.orderservice.event.LogisticsEvent;
+import com.ecommerce.orderservice.event.OrderEvent;
 import com.ecommerce.orderservice.event.PaymentEvent;
+import com.ecommerce.orderservice.event.ProductEvent;
+import com.ecommerce.orderservice.event.codec.EventDeserializer;
+import com.ecommerce.orderservice.event.codec.EventSchema;
+import com.ecommerce.orderservice.event.codec.EventSchemas;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.DeserializationException;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
@@ -28,64 +40,127 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${spring.kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${spring.kafka.consumer.fetch-min-size:500}")
+    private int fetchMinBytes;
+
+    @Value("${spring.kafka.consumer.fetch-max-wait:100}")
+    private int fetchMaxWaitMs;
+
+    @Value("${order.events.consumer-concurrency:1}")
+    private int consumerConcurrency;
+
+    // Only defined when spring.threads.virtual.enabled=true
+    @Autowired
+    @Qualifier("kafkaListenerTaskExecutor")
+    private ObjectProvider<AsyncTaskExecutor> listenerTaskExecutor;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
     @Bean
     public ConsumerFactory<String, LogisticsEvent> logisticsConsumerFactory() {
-        Map<String, Object> props = new HashMap<>();
-        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
-        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.ecommerce.orderservice.event");
-        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, LogisticsEvent.class.getName());
-        return new DefaultKafkaConsumerFactory<>(props);
+        return batchConsumerFactory(EventSchemas.LOGISTICS);
     }
 
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, LogisticsEvent> logisticsKafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, LogisticsEvent> factory =
-                new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(logisticsConsumerFactory());
-        return factory;
+        return batchListenerContainerFactory(logisticsConsumerFactory());
+    }
+
+    @Bean
+    public ConsumerFactory<String, PaymentEvent> paymentConsumerFactory() {
+        return batchConsumerFactory(EventSchemas.PAYMENT);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, PaymentEvent> paymentKafkaListenerContainerFactory() {
+        return batchListenerContainerFactory(paymentConsumerFactory());
+    }
+
+    @Bean
+    public ConsumerFactory<String, OrderEvent> orderConsumerFactory() {
+        return batchConsumerFactory(EventSchemas.ORDER);
     }
 
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, OrderEvent> orderKafkaListenerContainerFactory() {
+        return batchListenerContainerFactory(orderConsumerFactory());
+    }
 
     @Bean
-    public ConsumerFactory<String, Object> consumerFactory() {
+    public ConsumerFactory<String, ProductEvent> productConsumerFactory() {
         Map<String, Object> props = new HashMap<>();
-        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, "order-service-group");
-        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class.getName());
         props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class.getName());
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.ecommerce.orderservice.event,com.ecommerce.paymentservice.event");
-        props.put(JsonDeserializer.TYPE_MAPPINGS, "com.ecommerce.paymentservice.event.PaymentEvent:com.ecommerce.orderservice.event.PaymentEvent");
-        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 500);
-        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 100);
-
-        return new DefaultKafkaConsumerFactory<>(
-                props,
-                new StringDeserializer(),
-                new ErrorHandlingDeserializer<>(new JsonDeserializer<>(Object.class))
-        );
+        props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, ProductEvent.class.getName());
+        return withMetrics(new DefaultKafkaConsumerFactory<>(props));
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
-        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(1000L, 3L)));
+    public ConcurrentKafkaListenerContainerFactory<String, ProductEvent> productKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, ProductEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(productConsumerFactory());
+        // A lost invalidation only means an entry lives until its TTL, so poison records are skipped, not retried.
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(new FixedBackOff(0L, 0L));
+        factory.setCommonErrorHandler(errorHandler);
+        configureExecution(factory);
         return factory;
     }
 
-    @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> paymentKafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+    /**
+     * Consumer for the order event topics. Values are read as the schema's type in either the binary or the JSON
+     * format, whatever type headers the producer sets; a record that cannot be deserialized reaches the listener
+     * as null instead of blocking the partition.
+     */
+    private <T> ConsumerFactory<String, T> batchConsumerFactory(EventSchema<T> schema) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+        return withMetrics(new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new EventDeserializer<>(schema))));
+    }
+
+    /**
+     * Binds the Kafka client metrics of every consumer the factory creates, among them the per-partition
+     * {@code kafka.consumer.fetch.manager.records.lag} gauges.
+     */
+    private <T> ConsumerFactory<String, T> withMetrics(DefaultKafkaConsumerFactory<String, T> factory) {
+        meterRegistry.ifAvailable(registry -> factory.addListener(new MicrometerConsumerListener<>(registry)));
+        return factory;
+    }
+
+    /**
+     * Batch listener: the listener gets everything one poll returned and the offsets of the poll are committed
+     * once the listener returns. When the listener names the failed record with a
+     * {@link org.springframework.kafka.listener.BatchListenerFailedException}, the records before it are committed,
+     * the rest is redelivered after the back-off, and only that record is skipped once its retries are exhausted.
+     */
+    private <T> ConcurrentKafkaListenerContainerFactory<String, T> batchListenerContainerFactory(
+            ConsumerFactory<String, T> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, T> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(consumerConcurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
         DefaultErrorHandler errorHandler = new DefaultErrorHandler(new FixedBackOff(1000L, 3L));
         errorHandler.addNotRetryableExceptions(DeserializationException.class);
         factory.setCommonErrorHandler(errorHandler);
+        configureExecution(factory);
         return factory;
     }
+
+    private void configureExecution(ConcurrentKafkaListenerContainerFactory<?, ?> factory) {
+        listenerTaskExecutor.ifAvailable(executor -> factory.getContainerProperties().setListenerTaskExecutor(executor));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.ecommerce.orderservice.config;
+
+import com.ecommerce.orderservice.event.codec.EventSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+@Configuration
+public class KafkaProducerConfig {
+
+    /**
+     * Keeps Boot's producer factory and its {@code spring.kafka.producer.*} settings, and only swaps the value
+     * serializer so that {@code order.events.format} decides how events go on the wire.
+     */
+    @Bean
+    @SuppressWarnings("unchecked")
+    public DefaultKafkaProducerFactoryCustomizer eventSerializerCustomizer(
+            @Value("${order.events.format:JSON}") EventSerializer.Format format) {
+        return producerFactory -> ((DefaultKafkaProducerFactory<?, Object>) producerFactory)
+                .setValueSerializer(new EventSerializer(format));
+    }
+}
@@ -0,0 +1,47 @@
+package com.ecommerce.orderservice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps Keycloak {@code realm_access.roles} to {@code ROLE_<ROLE>} authorities. Users share a handful of role sets,
+ * so the authorities of each distinct set are built once and the same immutable list is handed out afterwards;
+ * the number of sets kept is bounded in case tokens carry unusually varied roles.
+ */
+public class RealmRoleAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+    private static final int MAX_ROLE_SETS = 1024;
+
+    private final Cache<List<?>, List<GrantedAuthority>> byRoles = Caffeine.newBuilder()
+            .maximumSize(MAX_ROLE_SETS)
+            .build();
+
+    @Override
+    public Collection<GrantedAuthority> convert(Jwt jwt) {
+        if (!(jwt.getClaims().get("realm_access") instanceof Map<?, ?> realmAccess)
+                || !(realmAccess.get("roles") instanceof List<?> roles)) {
+            return Collections.emptyList();
+        }
+        return byRoles.get(roles, RealmRoleAuthoritiesConverter::authorities);
+    }
+
+    private static List<GrantedAuthority> authorities(List<?> roles) {
+        List<GrantedAuthority> authorities = new ArrayList<>(roles.size());
+        for (Object role : roles) {
+            if (role != null) {
+                authorities.add(new SimpleGrantedAuthority("ROLE_" + role.toString().toUpperCase(Locale.ROOT)));
+            }
+        }
+        return List.copyOf(authorities);
+    }
+}
@@ -0,0 +1,86 @@
+package com.ecommerce.orderservice.config;
+
+import com.ecommerce.orderservice.client.DownstreamPolicy;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class ResilienceConfig {
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public BulkheadRegistry bulkheadRegistry(MeterRegistry meterRegistry) {
+        BulkheadRegistry registry = BulkheadRegistry.ofDefaults();
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public DownstreamPolicy productPolicy(ResilienceProperties properties, CircuitBreakerRegistry circuitBreakers,
+                                          BulkheadRegistry bulkheads, MeterRegistry meterRegistry) {
+        return policy(HttpClientConfig.PRODUCT, properties.policy(HttpClientConfig.PRODUCT), circuitBreakers, bulkheads, meterRegistry);
+    }
+
+    @Bean
+    public DownstreamPolicy paymentPolicy(ResilienceProperties properties, CircuitBreakerRegistry circuitBreakers,
+                                          BulkheadRegistry bulkheads, MeterRegistry meterRegistry) {
+        return policy(HttpClientConfig.PAYMENT, properties.policy(HttpClientConfig.PAYMENT), circuitBreakers, bulkheads, meterRegistry);
+    }
+
+    /**
+     * Only connection failures, timeouts and 5xx responses are retried or count against the breaker;
+     * 4xx responses such as a 409 for insufficient stock are answers, not outages.
+     */
+    static DownstreamPolicy policy(String downstream, ResilienceProperties.Policy policy, CircuitBreakerRegistry circuitBreakers,
+                                   BulkheadRegistry bulkheads, MeterRegistry meterRegistry) {
+        RetryTemplate retryTemplate = RetryTemplate.builder()
+                .maxAttempts(policy.getMaxAttempts())
+                .exponentialBackoff(policy.getInitialBackoff().toMillis(), policy.getBackoffMultiplier(),
+                        policy.getMaxBackoff().toMillis(), true)
+                .retryOn(List.of(ResourceAccessException.class, HttpServerErrorException.class))
+                .build();
+
+        CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(downstream, CircuitBreakerConfig.custom()
+                .failureRateThreshold(policy.getFailureRateThreshold())
+                .slidingWindowSize(policy.getSlidingWindowSize())
+                .minimumNumberOfCalls(policy.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(policy.getOpenStateWait())
+                .slowCallDurationThreshold(policy.getSlowCallThreshold())
+                .recordExceptions(ResourceAccessException.class, HttpServerErrorException.class)
+                .build());
+
+        Bulkhead bulkhead = bulkheads.bulkhead(downstream, BulkheadConfig.custom()
+                .maxConcurrentCalls(policy.getMaxConcurrentCalls())
+                .maxWaitDuration(policy.getMaxWait())
+                .build());
+        Counter rejected = Counter.builder("resilience4j.bulkhead.rejected.calls")
+                .tag("name", downstream)
+                .register(meterRegistry);
+        bulkhead.getEventPublisher().onCallRejected(event -> rejected.increment());
+
+        return new DownstreamPolicy(retryTemplate, bulkhead, circuitBreaker);
+    }
+}
@@ -0,0 +1,42 @@
+package com.ecommerce.orderservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Retry, circuit breaker and bulkhead settings per downstream, keyed by downstream name
+ * ({@code order.resilience.policies.product.max-attempts=3}).
+ */
+@Data
+@ConfigurationProperties(prefix = "order.resilience")
+public class ResilienceProperties {
+    private Map<String, Policy> policies = new HashMap<>();
+
+    public Policy policy(String name) {
+        return policies.getOrDefault(name, new Policy());
+    }
+
+    @Data
+    public static class Policy {
+        // Retry with exponential backoff and full jitter
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(200);
+        private double backoffMultiplier = 2.0;
+        private Duration maxBackoff = Duration.ofSeconds(2);
+
+        // Circuit breaker over the last sliding-window-size calls
+        private float failureRateThreshold = 50;
+        private int slidingWindowSize = 20;
+        private int minimumNumberOfCalls = 10;
+        private Duration openStateWait = Duration.ofSeconds(10);
+        private Duration slowCallThreshold = Duration.ofSeconds(3);
+
+        // Bulkhead
+        private int maxConcurrentCalls = 32;
+        private Duration maxWait = Duration.ofMillis(100);
+    }
+}
@@ -1,8 +1,15 @@
 package com.ecommerce.orderservice.config;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.retry.annotation.EnableRetry;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -11,19 +18,19 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.time.Duration;
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
-@EnableRetry
 public class SecurityConfig {
+    private static final int JWK_SET_SIZE_LIMIT = 50 * 1024;
+
+    @Value("${order.security.jwk-set-uri:http://localhost:8088/realms/ecommerce/protocol/openid-connect/certs}")
+    private String jwkSetUri;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -47,26 +54,43 @@ public class SecurityConfig {
     public JwtAuthenticationConverter jwtAuthenticationConverter() {
         JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
         converter.setPrincipalClaimName("preferred_username");
-        converter.setJwtGrantedAuthoritiesConverter(jwt -> {
-            Map<String, Object> realmAccess = (Map<String, Object>) jwt.getClaims().get("realm_access");
-            List<String> roles = realmAccess != null ? (List<String>) realmAccess.get("roles") : Collections.emptyList();
-            return roles.stream()
-                    .filter(role -> role != null)
-                    .map(role -> new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))
-                    .collect(Collectors.toList());
-        });
+        converter.setJwtGrantedAuthoritiesConverter(new RealmRoleAuthoritiesConverter());
         return converter;
     }
 
+    /**
+     * Keycloak's signing keys, cached for {@code ttl} and fetched again in the background {@code refresh-ahead}
+     * before they expire, so rotated keys arrive without a request waiting on Keycloak. A token signed with a key
+     * not in the cache triggers an immediate, rate-limited reload. Loaded once at startup by {@link JwkSetWarmup}.
+     */
     @Bean
-    public JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder
-                .withJwkSetUri("http://localhost:8088/realms/ecommerce/protocol/openid-connect/certs")
+    public JWKSource<SecurityContext> jwkSource(
+            @Value("${order.security.jwks.ttl:15m}") Duration ttl,
+            @Value("${order.security.jwks.refresh-ahead:1m}") Duration refreshAhead,
+            @Value("${order.security.jwks.connect-timeout:1s}") Duration connectTimeout,
+            @Value("${order.security.jwks.read-timeout:3s}") Duration readTimeout
+    ) throws MalformedURLException {
+        DefaultResourceRetriever retriever = new DefaultResourceRetriever(
+                (int) connectTimeout.toMillis(), (int) readTimeout.toMillis(), JWK_SET_SIZE_LIMIT);
+        return JWKSourceBuilder.create(URI.create(jwkSetUri).toURL(), retriever)
+                .cache(ttl.toMillis(), readTimeout.toMillis())
+                .refreshAheadCache(refreshAhead.toMillis(), true)
+                .retrying(true)
                 .build();
     }
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public JwtDecoder jwtDecoder(
+            JWKSource<SecurityContext> jwkSource,
+            MeterRegistry meterRegistry,
+            @Value("${order.security.jwt-cache.max-size:10000}") long cacheSize,
+            @Value("${order.security.jwt-cache.max-ttl:5m}") Duration cacheTtl
+    ) {
+        NimbusJwtDecoder verifier = NimbusJwtDecoder
+                .withJwkSetUri(jwkSetUri)
+                .jwtProcessorCustomizer(processor -> processor.setJWSKeySelector(
+                        new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource)))
+                .build();
+        return new CachingJwtDecoder(verifier, cacheSize, cacheTtl, meterRegistry);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.ecommerce.orderservice.consumer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code order.event.latency}: time from an event's record timestamp (its producer's send time, unless the topic
+ * uses log append time) to the end of the batch that handled it, i.e. until the status change it caused was stored.
+ * Includes the time the event waited in the topic, so it grows with consumer lag.
+ */
+final class EventLatency {
+
+    private EventLatency() {
+    }
+
+    static Timer timer(String topic, MeterRegistry meterRegistry) {
+        return Timer.builder("order.event.latency")
+                .description("Time from an event being produced to the resulting status change being stored")
+                .tag("topic", topic)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(meterRegistry);
+    }
+
+    static void record(Timer timer, List<Long> timestamps) {
+        long now = System.currentTimeMillis();
+        for (Long timestamp : timestamps) {
+            // Clocks of producer and consumer hosts differ; a record from the "future" is counted as zero.
+            timer.record(Math.max(0, now - timestamp), TimeUnit.MILLISECONDS);
+        }
+    }
+}
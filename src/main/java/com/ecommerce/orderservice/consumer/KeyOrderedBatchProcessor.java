@@ -0,0 +1,106 @@
+package com.ecommerce.orderservice.consumer;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs one batch of events on up to {@code lanes} lanes at once. Events are assigned to a lane by key, so events
+ * for the same order are handled one after another in delivery order while different orders proceed side by side.
+ * {@link #process} returns only when every lane has finished, so a batch listener's offsets are committed only
+ * once all of the batch's records were handled.
+ */
+public class KeyOrderedBatchProcessor {
+    private final int lanes;
+    private final TaskExecutor executor;
+    private final AtomicInteger busyLanes = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final DistributionSummary laneOccupancy;
+
+    public KeyOrderedBatchProcessor(String name, int lanes, TaskExecutor executor, MeterRegistry meterRegistry) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("At least one lane is required");
+        }
+        this.lanes = lanes;
+        this.executor = executor;
+        Gauge.builder("order.events.lanes.busy", busyLanes, AtomicInteger::get)
+                .description("Lanes currently handling events")
+                .tag("consumer", name)
+                .register(meterRegistry);
+        Gauge.builder("order.events.in.flight", inFlight, AtomicInteger::get)
+                .description("Events received but not yet handled")
+                .tag("consumer", name)
+                .register(meterRegistry);
+        this.laneOccupancy = DistributionSummary.builder("order.events.lane.occupancy")
+                .description("Fraction of lanes a batch kept busy")
+                .tag("consumer", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hands every lane's events, in delivery order, to {@code handler}. If any lane fails, the first failure is
+     * rethrown after the other lanes have finished, with the failures of later lanes added as suppressed.
+     */
+    public <T> void process(List<T> batch, Function<T, String> key, Consumer<List<T>> handler) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<List<T>> byLane = partition(batch, key);
+        laneOccupancy.record((double) byLane.size() / lanes);
+        inFlight.addAndGet(batch.size());
+        if (byLane.size() == 1) {
+            runLane(byLane.get(0), handler);
+            return;
+        }
+
+        List<CompletableFuture<Void>> runs = byLane.stream()
+                .map(events -> CompletableFuture.runAsync(() -> runLane(events, handler), executor))
+                .toList();
+        RuntimeException failure = null;
+        for (CompletableFuture<Void> run : runs) {
+            try {
+                run.join();
+            } catch (CompletionException e) {
+                RuntimeException laneFailure = e.getCause() instanceof RuntimeException cause ? cause : e;
+                if (failure == null) {
+                    failure = laneFailure;
+                } else {
+                    failure.addSuppressed(laneFailure);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private <T> void runLane(List<T> events, Consumer<List<T>> handler) {
+        busyLanes.incrementAndGet();
+        try {
+            handler.accept(events);
+        } finally {
+            busyLanes.decrementAndGet();
+            inFlight.addAndGet(-events.size());
+        }
+    }
+
+    private <T> List<List<T>> partition(List<T> batch, Function<T, String> key) {
+        Map<Integer, List<T>> byLane = new LinkedHashMap<>();
+        for (T event : batch) {
+            int lane = Math.floorMod(key.apply(event).hashCode(), lanes);
+            byLane.computeIfAbsent(lane, ignored -> new ArrayList<>()).add(event);
+        }
+        return new ArrayList<>(byLane.values());
+    }
+}
@@ -0,0 +1,80 @@
+package com.ecommerce.orderservice.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The first event of a lane that could not be handled. A lane is handled in one bulk call; when that fails, its
+ * events are retried one at a time, in order, up to the first one that still fails, so a single bad event no longer
+ * takes the whole poll down with it. {@link #toBatchListenerFailure} then names the earliest failed record of the
+ * poll to the container, whose error handler commits the records before it, retries from it and, once its retries
+ * are exhausted, skips only that record.
+ */
+@Slf4j
+final class LaneFailure extends RuntimeException {
+    private final transient Object event;
+
+    private LaneFailure(Object event, RuntimeException cause) {
+        super(cause.getMessage(), cause);
+        this.event = event;
+    }
+
+    static <T> void handle(List<T> lane, Consumer<List<T>> handler) {
+        try {
+            handler.accept(lane);
+            return;
+        } catch (RuntimeException e) {
+            if (lane.size() == 1) {
+                throw new LaneFailure(lane.get(0), e);
+            }
+            log.warn("Handling a lane of {} events failed, retrying them one at a time: {}", lane.size(),
+                    e.getMessage());
+        }
+        for (T event : lane) {
+            try {
+                handler.accept(List.of(event));
+            } catch (RuntimeException e) {
+                // Later events of the lane belong to the same orders and must not overtake this one.
+                throw new LaneFailure(event, e);
+            }
+        }
+    }
+
+    /**
+     * @param failure what {@link KeyOrderedBatchProcessor#process} threw, with the failures of other lanes suppressed
+     * @param records the records of the poll, as the listener received them
+     */
+    static RuntimeException toBatchListenerFailure(RuntimeException failure, List<?> records) {
+        List<Throwable> failures = new ArrayList<>(List.of(failure.getSuppressed()));
+        failures.add(0, failure);
+        int earliest = -1;
+        LaneFailure first = null;
+        for (Throwable candidate : failures) {
+            if (candidate instanceof LaneFailure laneFailure) {
+                int index = indexOf(records, laneFailure.event);
+                if (index >= 0 && (earliest < 0 || index < earliest)) {
+                    earliest = index;
+                    first = laneFailure;
+                }
+            }
+        }
+        if (first == null) {
+            return failure;
+        }
+        return new BatchListenerFailedException("Failed to handle record " + earliest + " of the batch",
+                first.getCause(), earliest);
+    }
+
+    private static int indexOf(List<?> records, Object event) {
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i) == event) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
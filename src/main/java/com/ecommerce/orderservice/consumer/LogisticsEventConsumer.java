@@ -1,33 +1,72 @@
 package com.ecommerce.orderservice.consumer;
 
 import com.ecommerce.orderservice.event.LogisticsEvent;
+import com.ecommerce.orderservice.service.EventDeduplicator;
 import com.ecommerce.orderservice.service.OrderService;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The only consumer of LOGISTICS_EVENTS. Receives a whole poll at a time; see {@link PaymentEventConsumer}.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class LogisticsEventConsumer {
+    private static final String TOPIC = "LOGISTICS_EVENTS";
+
     private final OrderService orderService;
+    private final KeyOrderedBatchProcessor processor;
+    private final EventDeduplicator deduplicator;
+    private final Timer eventLatency;
+
+    public LogisticsEventConsumer(OrderService orderService,
+                                  @Qualifier("logisticsEventProcessor") KeyOrderedBatchProcessor processor,
+                                  EventDeduplicator deduplicator,
+                                  MeterRegistry meterRegistry) {
+        this.orderService = orderService;
+        this.processor = processor;
+        this.deduplicator = deduplicator;
+        this.eventLatency = EventLatency.timer(TOPIC, meterRegistry);
+    }
 
     @KafkaListener(
-            topics = "LOGISTICS_EVENTS",
+            topics = TOPIC,
             groupId = "order-service-group",
             containerFactory = "logisticsKafkaListenerContainerFactory"
     )
-    public void handleLogisticsEvent(LogisticsEvent event) {
-        if (event == null || event.getOrderId() == null || event.getStatus() == null) {
-            log.error("Invalid logistics event received: {}", event);
-            return;
+    public void handleLogisticsEvents(List<LogisticsEvent> events,
+                                      @Header(KafkaHeaders.RECEIVED_TIMESTAMP) List<Long> timestamps) {
+        List<LogisticsEvent> valid = new ArrayList<>(events.size());
+        for (LogisticsEvent event : events) {
+            if (event == null || event.getOrderId() == null || event.getStatus() == null) {
+                log.error("Invalid logistics event received: {}", event);
+                continue;
+            }
+            valid.add(event);
         }
-        log.info("Received logistics event: {}", event);
+        log.debug("Received {} logistics events", valid.size());
+        List<LogisticsEvent> fresh = deduplicator.filterNew(TOPIC, valid, LogisticsEventConsumer::identity);
         try {
-            orderService.handleLogisticsEvent(event);
-        } catch (Exception e) {
-            log.error("Error processing logistics event: {}", event, e);
+            processor.process(fresh, LogisticsEvent::getOrderId, lane -> LaneFailure.handle(lane, chunk -> {
+                orderService.handleLogisticsEvents(chunk);
+                deduplicator.markProcessed(TOPIC, chunk, LogisticsEventConsumer::identity);
+            }));
+        } catch (RuntimeException e) {
+            throw LaneFailure.toBatchListenerFailure(e, events);
         }
+        EventLatency.record(eventLatency, timestamps);
+    }
+
+    private static String identity(LogisticsEvent event) {
+        return event.getOrderId() + ":" + event.getStatus();
     }
-}
\ No newline at end of file
+}
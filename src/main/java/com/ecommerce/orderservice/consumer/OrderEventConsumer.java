@@ -0,0 +1,34 @@
+package com.ecommerce.orderservice.consumer;
+
+import com.ecommerce.orderservice.event.OrderEvent;
+import com.ecommerce.orderservice.service.OrderDetailsCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Drops cached order details when any replica commits a status change. Every replica holds its own cache, so
+ * every replica consumes in its own consumer group, starting from the latest events.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderEventConsumer {
+    private final OrderDetailsCache orderDetailsCache;
+
+    @KafkaListener(
+            topics = "ORDER_EVENTS",
+            groupId = "${order.details-cache.invalidation-group-id}",
+            containerFactory = "orderKafkaListenerContainerFactory",
+            properties = "auto.offset.reset=latest"
+    )
+    public void handleOrderEvents(List<OrderEvent> events) {
+        orderDetailsCache.invalidateAll(events.stream()
+                .filter(Objects::nonNull)
+                .map(OrderEvent::getOrderId)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+}
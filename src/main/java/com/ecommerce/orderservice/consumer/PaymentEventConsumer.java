@@ -1,33 +1,76 @@
 package com.ecommerce.orderservice.consumer;
 
 import com.ecommerce.orderservice.event.PaymentEvent;
+import com.ecommerce.orderservice.service.EventDeduplicator;
 import com.ecommerce.orderservice.service.OrderService;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The only consumer of PAYMENT_EVENTS. Receives a whole poll at a time, drops events already handled, and spreads
+ * the rest over lanes keyed by order id, so one order's events stay in order while different orders are handled in
+ * parallel. A failed event is reported to the container by its index in the poll (see {@link LaneFailure}), which
+ * commits the records before it and redelivers the rest; that is safe because events already handled are dropped as
+ * duplicates and every status write is conditional on the status it was read with.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class PaymentEventConsumer {
+    private static final String TOPIC = "PAYMENT_EVENTS";
+
     private final OrderService orderService;
+    private final KeyOrderedBatchProcessor processor;
+    private final EventDeduplicator deduplicator;
+    private final Timer eventLatency;
+
+    public PaymentEventConsumer(OrderService orderService,
+                                @Qualifier("paymentEventProcessor") KeyOrderedBatchProcessor processor,
+                                EventDeduplicator deduplicator,
+                                MeterRegistry meterRegistry) {
+        this.orderService = orderService;
+        this.processor = processor;
+        this.deduplicator = deduplicator;
+        this.eventLatency = EventLatency.timer(TOPIC, meterRegistry);
+    }
 
     @KafkaListener(
-            topics = "PAYMENT_EVENTS",
+            topics = TOPIC,
             groupId = "order-service-group",
             containerFactory = "paymentKafkaListenerContainerFactory"
     )
-    public void handlePaymentEvent(PaymentEvent event) {
-        if (event == null || event.getOrderId() == null || event.getStatus() == null) {
-            log.error("Invalid payment event received: {}", event);
-            return;
+    public void handlePaymentEvents(List<PaymentEvent> events,
+                                    @Header(KafkaHeaders.RECEIVED_TIMESTAMP) List<Long> timestamps) {
+        List<PaymentEvent> valid = new ArrayList<>(events.size());
+        for (PaymentEvent event : events) {
+            if (event == null || event.getOrderId() == null || event.getStatus() == null) {
+                log.error("Invalid payment event received: {}", event);
+                continue;
+            }
+            valid.add(event);
         }
-        log.info("Received payment event: {}", event);
+        log.debug("Received {} payment events", valid.size());
+        List<PaymentEvent> fresh = deduplicator.filterNew(TOPIC, valid, PaymentEventConsumer::identity);
         try {
-            orderService.handlePaymentEvent(event);
-        } catch (Exception e) {
-            log.error("Error processing payment event: {}", event, e);
+            processor.process(fresh, PaymentEvent::getOrderId, lane -> LaneFailure.handle(lane, chunk -> {
+                orderService.handlePaymentEvents(chunk);
+                deduplicator.markProcessed(TOPIC, chunk, PaymentEventConsumer::identity);
+            }));
+        } catch (RuntimeException e) {
+            throw LaneFailure.toBatchListenerFailure(e, events);
         }
+        EventLatency.record(eventLatency, timestamps);
+    }
+
+    private static String identity(PaymentEvent event) {
+        return event.getOrderId() + ":" + event.getStatus();
     }
-}
\ No newline at end of file
+}
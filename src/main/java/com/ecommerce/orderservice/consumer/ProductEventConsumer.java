@@ -0,0 +1,33 @@
+package com.ecommerce.orderservice.consumer;
+
+import com.ecommerce.orderservice.client.ProductCatalogCache;
+import com.ecommerce.orderservice.event.ProductEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops cached product data when the product service reports a change. Every replica holds its own cache,
+ * so every replica consumes in its own consumer group.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductEventConsumer {
+    private final ProductCatalogCache productCatalogCache;
+
+    @KafkaListener(
+            topics = "PRODUCT_EVENTS",
+            groupId = "${order.product-cache.invalidation-group-id}",
+            containerFactory = "productKafkaListenerContainerFactory",
+            properties = "auto.offset.reset=latest"
+    )
+    public void handleProductEvent(ProductEvent event) {
+        if (event == null || event.getProductId() == null) {
+            log.error("Invalid product event received: {}", event);
+            return;
+        }
+        productCatalogCache.invalidate(event.getProductId());
+    }
+}
@@ -0,0 +1,8 @@
+package com.ecommerce.orderservice.controller;
+
+/**
+ * The caller of a request, resolved from its verified JWT by {@link CurrentUserArgumentResolver}: a controller
+ * method declares a {@code CurrentUser} parameter instead of reading the security context itself.
+ */
+public record CurrentUser(String userId) {
+}
@@ -1,57 +1,134 @@
 package com.ecommerce.orderservice.controller;
 
+import com.ecommerce.orderservice.dto.OrderHistoryPage;
+import com.ecommerce.orderservice.dto.PlacementResult;
 import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.entity.StatusRollup;
+import com.ecommerce.orderservice.entity.UserOrderSummary;
+import com.ecommerce.orderservice.service.IdempotencyService;
+import com.ecommerce.orderservice.service.OrderPlacementPipeline;
+import com.ecommerce.orderservice.service.OrderRollups;
 import com.ecommerce.orderservice.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/orders")
 @RequiredArgsConstructor
 public class OrderController {
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String RESPOND_ASYNC = "respond-async";
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     private final OrderService orderService;
+    private final OrderPlacementPipeline orderPlacementPipeline;
+    private final IdempotencyService idempotencyService;
+    private final OrderRollups orderRollups;
+
+    @Value("${order.placement.async:false}")
+    private boolean asyncPlacement;
 
+    /**
+     * Places the order and returns it with 201. In asynchronous mode ({@code order.placement.async=true}, or a
+     * {@code Prefer: respond-async} header) the order is only stored and 202 is returned with its status URL in
+     * {@code Location}; the outcome shows up there and on ORDER_EVENTS. With an {@code Idempotency-Key} header,
+     * repeats of the request return the first response, marked {@code Idempotent-Replayed: true}, instead of
+     * placing the order again; the same key with a different order is refused with 422.
+     */
     @PostMapping
-    public ResponseEntity<Order> placeOrder(@Valid @RequestBody Order order) {
-        JwtAuthenticationToken authToken = (JwtAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
-        String userId = authToken.getToken().getClaim("sub").toString();
-        String token = "Bearer " + authToken.getToken().getTokenValue();
-        Order createdOrder = orderService.placeOrder(order, userId, token);
-        return new ResponseEntity<>(createdOrder, HttpStatus.CREATED);
+    public ResponseEntity<Order> placeOrder(@Valid @RequestBody Order order,
+                                           @RequestHeader(value = "Prefer", required = false) String prefer,
+                                           @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                           CurrentUser user) {
+        String userId = user.userId();
+        boolean async = asyncPlacement || RESPOND_ASYNC.equalsIgnoreCase(prefer);
+        Supplier<PlacementResult> placement = () -> async
+                ? new PlacementResult(HttpStatus.ACCEPTED.value(), orderPlacementPipeline.accept(order, userId), false)
+                : new PlacementResult(HttpStatus.CREATED.value(), orderService.placeOrder(order, userId), false);
+        PlacementResult result = idempotencyKey == null
+                ? placement.get()
+                : idempotencyService.execute(userId, idempotencyKey, IdempotencyService.fingerprint(order), placement);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(result.getStatus());
+        if (result.getStatus() == HttpStatus.ACCEPTED.value()) {
+            response.location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}")
+                    .buildAndExpand(result.getOrder().getId()).toUri());
+        }
+        if (result.isReplayed()) {
+            response.header(IDEMPOTENT_REPLAYED, "true");
+        }
+        return response.body(result.getOrder());
     }
 
     @PutMapping("/{id}/cancel")
-    public ResponseEntity<Order> cancelOrder(@PathVariable String id) {
-        JwtAuthenticationToken authToken = (JwtAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
-        String userId = authToken.getToken().getClaim("sub").toString();
-        return ResponseEntity.ok(orderService.cancelOrder(id, userId));
+    public ResponseEntity<Order> cancelOrder(@PathVariable String id, CurrentUser user) {
+        return ResponseEntity.ok(orderService.cancelOrder(id, user.userId()));
     }
 
     @PutMapping("/{id}/return")
-    public ResponseEntity<Order> returnOrder(@PathVariable String id) {
-        JwtAuthenticationToken authToken = (JwtAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
-        String userId = authToken.getToken().getClaim("sub").toString();
-        return ResponseEntity.ok(orderService.returnOrder(id, userId));
+    public ResponseEntity<Order> returnOrder(@PathVariable String id, CurrentUser user) {
+        return ResponseEntity.ok(orderService.returnOrder(id, user.userId()));
     }
 
     @GetMapping
-    public ResponseEntity<List<Order>> getOrderHistory() {
-        JwtAuthenticationToken authToken = (JwtAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
-        String userId = authToken.getToken().getClaim("sub").toString();
-        return ResponseEntity.ok(orderService.getOrderHistory(userId));
+    public ResponseEntity<OrderHistoryPage> getOrderHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean includeItems,
+            CurrentUser user) {
+        return ResponseEntity.ok(orderService.getOrderHistory(user.userId(), cursor, limit, includeItems));
+    }
+
+    /**
+     * Streams every order of the current user as newline-delimited JSON, optionally filtered by status and
+     * by a {@code [from, to)} creation time range.
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            CurrentUser user) {
+        StreamingResponseBody body = out -> orderService.exportOrders(user.userId(), status, from, to, out);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    /**
+     * The current user's order count and spend per status, read from one pre-aggregated document.
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<UserOrderSummary> getOrderSummary(CurrentUser user) {
+        return ResponseEntity.ok(orderRollups.findUserSummary(user.userId()));
+    }
+
+    /**
+     * Hourly counts per status of the orders created in {@code [from, to)}, at most 31 days, for operations.
+     */
+    @GetMapping("/rollups")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<StatusRollup>> getStatusRollups(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(orderRollups.findStatusRollups(from, to));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrderDetails(@PathVariable String id) {
-        JwtAuthenticationToken authToken = (JwtAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
-        String userId = authToken.getToken().getClaim("sub").toString();
-        return ResponseEntity.ok(orderService.getOrderDetails(id, userId));
+    public ResponseEntity<Order> getOrderDetails(@PathVariable String id, CurrentUser user) {
+        return ResponseEntity.ok(orderService.getOrderDetails(id, user.userId()));
     }
 }
\ No newline at end of file
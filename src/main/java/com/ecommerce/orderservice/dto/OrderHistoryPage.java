@@ -0,0 +1,13 @@
+package com.ecommerce.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class OrderHistoryPage {
+    private List<OrderSummary> orders;
+    private String nextCursor; // Null on the last page
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.orderservice.dto;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Order history row. Line items are only loaded and serialized when explicitly requested.
+ */
+@Data
+public class OrderSummary {
+    private String id;
+    private OrderStatus status;
+    private BigDecimal totalAmount;
+    private Order.PaymentMethod paymentMethod;
+    private String reason;
+    private LocalDateTime createdAt;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Order.OrderItem> items;
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.orderservice.dto;
+
+import com.ecommerce.orderservice.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PlacementResult {
+    private int status; // 201 when placed, 202 when accepted for asynchronous placement
+    private Order order;
+    private boolean replayed; // True when answered from an earlier request with the same Idempotency-Key
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.orderservice.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * First outcome of an order placement made under an {@code Idempotency-Key}. The key is unique per user through
+ * {@code _id}; while the placement runs the record is a lock held until {@code lockedUntil}. Mongo drops records
+ * after a day, by which time no client is still retrying.
+ */
+@Document(collection = "idempotency_keys")
+@Data
+public class IdempotencyRecord {
+    @Id
+    private String id; // userId:key
+
+    private String fingerprint; // Hash of the request, to refuse a key reused for a different order
+
+    private boolean completed;
+
+    private Instant lockedUntil;
+
+    private int responseStatus;
+
+    private Order response;
+
+    @Indexed(name = "idempotency_ttl_idx", expireAfter = "24h")
+    private Instant createdAt = Instant.now();
+}
@@ -2,6 +2,8 @@ package com.ecommerce.orderservice.entity;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import jakarta.validation.constraints.*;
@@ -10,6 +12,11 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection = "orders")
+@CompoundIndexes({
+        @CompoundIndex(name = "user_created_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}"), // Order history
+        @CompoundIndex(name = "status_created_idx", def = "{'status': 1, 'createdAt': 1}"),
+        @CompoundIndex(name = "status_payment_created_idx", def = "{'status': 1, 'paymentMethod': 1, 'createdAt': 1}") // Payment link expiry
+})
 @Data
 public class Order {
     @Id
@@ -25,12 +32,16 @@ public class Order {
     @NotNull(message = "Payment method is required")
     private PaymentMethod paymentMethod; // ONLINE or COD
 
-    private String status = "PENDING"; // PENDING, PLACED, SHIPPED, OUT_FOR_DELIVERY, DELIVERED, CANCELLED, FAILED, RETURNED
+    private OrderStatus status = OrderStatus.PENDING;
 
     private String reason; // Reason for FAILED status
 
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    private long version; // Incremented by every status transition
+
+    private int reservationAttempt; // Placement attempt whose stock keys hold the stock; 0 for synchronous placement
+
     public enum PaymentMethod {
         ONLINE, COD
     }
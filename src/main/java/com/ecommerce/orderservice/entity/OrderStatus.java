@@ -0,0 +1,58 @@
+package com.ecommerce.orderservice.entity;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Order lifecycle. Every path that moves an order, whether user request, payment or logistics event, or expiry,
+ * checks the same table. Lookups are a bit test on a precomputed {@link EnumSet} and allocate nothing.
+ * <p>
+ * ACCEPTED is an asynchronously placed order that is not priced yet and holds no stock.
+ */
+public enum OrderStatus {
+    ACCEPTED, PENDING, PLACED, SHIPPED, OUT_FOR_DELIVERY, DELIVERED, CANCELLED, FAILED, RETURNED;
+
+    private static final Map<OrderStatus, Set<OrderStatus>> TARGETS = new EnumMap<>(OrderStatus.class);
+    private static final Map<OrderStatus, Set<OrderStatus>> SOURCES = new EnumMap<>(OrderStatus.class);
+
+    static {
+        allow(ACCEPTED, PENDING, PLACED, FAILED);
+        allow(PENDING, PLACED, FAILED, CANCELLED);
+        allow(PLACED, SHIPPED, FAILED, CANCELLED);
+        allow(SHIPPED, OUT_FOR_DELIVERY);
+        allow(OUT_FOR_DELIVERY, DELIVERED);
+        allow(DELIVERED, RETURNED);
+        allow(CANCELLED);
+        allow(FAILED);
+        allow(RETURNED);
+        for (OrderStatus target : values()) {
+            EnumSet<OrderStatus> sources = EnumSet.noneOf(OrderStatus.class);
+            TARGETS.forEach((source, targets) -> {
+                if (targets.contains(target)) {
+                    sources.add(source);
+                }
+            });
+            SOURCES.put(target, Collections.unmodifiableSet(sources));
+        }
+    }
+
+    private static void allow(OrderStatus source, OrderStatus... targets) {
+        EnumSet<OrderStatus> allowed = EnumSet.noneOf(OrderStatus.class);
+        allowed.addAll(Set.of(targets));
+        TARGETS.put(source, allowed);
+    }
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return TARGETS.get(this).contains(target);
+    }
+
+    /**
+     * Statuses an order may be in for a move to this status; the guard of the compare-and-set that makes it.
+     */
+    public Set<OrderStatus> sources() {
+        return SOURCES.get(this);
+    }
+}
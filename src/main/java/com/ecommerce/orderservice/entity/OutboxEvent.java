@@ -0,0 +1,31 @@
+package com.ecommerce.orderservice.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * An event waiting to be published, stored in the same transaction as the order change it describes. The relay
+ * takes the oldest events by {@code _id}, publishes the events of each order by {@code version}, and deletes an
+ * event once Kafka has acknowledged it.
+ */
+@Document(collection = "outbox")
+@CompoundIndex(name = "order_version_idx", def = "{'orderId': 1, 'version': 1, '_id': 1}") // Per-order publish order
+@Data
+public class OutboxEvent {
+    @Id
+    private String id;
+
+    private String topic;
+
+    private String orderId; // Message key
+
+    private OrderStatus status;
+
+    private long version; // The order's version after the change; shared by the events of one bulk write
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
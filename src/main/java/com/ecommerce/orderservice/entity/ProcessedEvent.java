@@ -0,0 +1,29 @@
+package com.ecommerce.orderservice.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Marks a consumed event as handled. Mongo drops the marker after seven days, which bounds the collection and
+ * comfortably covers redelivery by retries, rebalances and upstream resends.
+ */
+@Document(collection = "processed_events")
+@Data
+@NoArgsConstructor
+public class ProcessedEvent {
+    @Id
+    private String id; // topic:orderId:status
+
+    @Indexed(name = "processed_ttl_idx", expireAfter = "7d")
+    private Instant processedAt;
+
+    public ProcessedEvent(String id) {
+        this.id = id;
+        this.processedAt = Instant.now();
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.orderservice.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * How many of the orders created in one hour are in each status now. Bucketing by creation time keeps every order
+ * in one bucket for life, so a transition only moves a count within that bucket and the rollup can be rebuilt from
+ * {@code orders} alone.
+ */
+@Document(collection = "status_rollups")
+@Data
+public class StatusRollup {
+    @Id
+    private LocalDateTime bucket; // Creation hour, truncated
+
+    private Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+}
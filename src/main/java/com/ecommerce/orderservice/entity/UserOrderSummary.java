@@ -0,0 +1,33 @@
+package com.ecommerce.orderservice.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A user's order count and spend per current order status, kept up to date with {@code $inc} on every transition
+ * and rebuilt from {@code orders} by the rollup rebuild. An order counts towards the status it is in now, so its
+ * entry moves between statuses as the order does; statuses a user's orders have all left stay at zero.
+ */
+@Document(collection = "user_order_summaries")
+@Data
+public class UserOrderSummary {
+    @Id
+    private String userId;
+
+    private Map<OrderStatus, StatusTotals> byStatus = new EnumMap<>(OrderStatus.class);
+
+    @Data
+    public static class StatusTotals {
+        private long count;
+
+        @Field(targetType = FieldType.DECIMAL128) // Numeric in Mongo so that $inc can add to it
+        private BigDecimal spend = BigDecimal.ZERO;
+    }
+}
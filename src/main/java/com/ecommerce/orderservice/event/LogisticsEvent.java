@@ -1,9 +1,26 @@
 package com.ecommerce.orderservice.event;
 
+import com.ecommerce.orderservice.entity.OrderStatus;
 import lombok.Data;
 
 @Data
 public class LogisticsEvent {
     private String orderId;
-    private String status; // SHIPPED, OUT_FOR_DELIVERY, DELIVERED
-}
\ No newline at end of file
+    private Status status; // Unknown values fail deserialization
+
+    public enum Status {
+        SHIPPED(OrderStatus.SHIPPED),
+        OUT_FOR_DELIVERY(OrderStatus.OUT_FOR_DELIVERY),
+        DELIVERED(OrderStatus.DELIVERED);
+
+        private final OrderStatus target;
+
+        Status(OrderStatus target) {
+            this.target = target;
+        }
+
+        public OrderStatus target() {
+            return target;
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package com.ecommerce.orderservice.event;
 
+import com.ecommerce.orderservice.entity.OrderStatus;
 import lombok.Data;
 
 @Data
 public class OrderEvent {
     private String orderId;
-    private String status; // CANCELLED, RETURNED
-}
\ No newline at end of file
+    private OrderStatus status; // Every status change of the order, in the order they were committed
+}
@@ -1,10 +1,27 @@
 package com.ecommerce.orderservice.event;
 
+import com.ecommerce.orderservice.entity.OrderStatus;
 import lombok.Data;
 
 @Data
 public class PaymentEvent {
     private String orderId;
-    private String status; // PAYMENT_RECEIVED, PAYMENT_FAILED, REFUNDED
+    private Status status; // Unknown values fail deserialization
     private String reason = ""; // For PAYMENT_FAILED, default to empty string
-}
\ No newline at end of file
+
+    public enum Status {
+        PAYMENT_RECEIVED(OrderStatus.PLACED),
+        PAYMENT_FAILED(OrderStatus.FAILED),
+        REFUNDED(null); // Refunds do not move the order
+
+        private final OrderStatus target;
+
+        Status(OrderStatus target) {
+            this.target = target;
+        }
+
+        public OrderStatus target() {
+            return target;
+        }
+    }
+}
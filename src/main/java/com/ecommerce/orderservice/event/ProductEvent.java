@@ -0,0 +1,9 @@
+package com.ecommerce.orderservice.event;
+
+import lombok.Data;
+
+@Data
+public class ProductEvent {
+    private Long productId;
+    private String type; // UPDATED, DELETED, PRICE_CHANGED
+}
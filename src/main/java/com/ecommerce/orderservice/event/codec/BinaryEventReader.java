@@ -0,0 +1,85 @@
+package com.ecommerce.orderservice.event.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the fields written by {@link BinaryEventWriter}. A schema walks them with {@link #nextField()} and
+ * {@link #skip()}s the ones it does not know, which is what lets an older reader consume a newer writer's events.
+ */
+public final class BinaryEventReader {
+    private final byte[] data;
+    private int position;
+    private int field;
+    private int wireType;
+
+    BinaryEventReader(byte[] data, int offset) {
+        this.data = data;
+        this.position = offset;
+    }
+
+    public boolean nextField() {
+        if (position >= data.length) {
+            return false;
+        }
+        long tag = readVarint();
+        field = (int) (tag >>> 1);
+        wireType = (int) (tag & 1);
+        return true;
+    }
+
+    public int field() {
+        return field;
+    }
+
+    public String readString() {
+        expect(BinaryEventWriter.LENGTH_DELIMITED);
+        int length = readLength();
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public int readInt() {
+        expect(BinaryEventWriter.VARINT);
+        return (int) readVarint();
+    }
+
+    public void skip() {
+        if (wireType == BinaryEventWriter.VARINT) {
+            readVarint();
+        } else {
+            position += readLength();
+        }
+    }
+
+    private void expect(int expected) {
+        if (wireType != expected) {
+            throw new SerializationException("Field " + field + " has wire type " + wireType + ", expected " + expected);
+        }
+    }
+
+    private int readLength() {
+        long length = readVarint();
+        if (length < 0 || length > data.length - position) {
+            throw new SerializationException("Field " + field + " runs past the end of the record");
+        }
+        return (int) length;
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= data.length) {
+                throw new SerializationException("Truncated varint");
+            }
+            byte b = data[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint");
+    }
+}
@@ -0,0 +1,46 @@
+package com.ecommerce.orderservice.event.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Reads one event type in either format: records starting with {@link EventSerializer#MAGIC} are decoded with the
+ * schema, anything else as JSON into the same type, ignoring type headers. JSON cannot start with that byte, so
+ * producers can move to the binary format one at a time.
+ */
+public class EventDeserializer<T> implements Deserializer<T> {
+    private final EventSchema<T> schema;
+    private final JsonDeserializer<T> json;
+
+    public EventDeserializer(EventSchema<T> schema) {
+        this.schema = schema;
+        this.json = new JsonDeserializer<>(schema.type(), false);
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length == 0 || data[0] != EventSerializer.MAGIC) {
+            return headers != null ? json.deserialize(topic, headers, data) : json.deserialize(topic, data);
+        }
+        if (data.length < 2) {
+            throw new SerializationException("Binary " + schema.type().getSimpleName() + " without a schema version");
+        }
+        // Every version is readable: fields are only ever added, and unknown ones are skipped.
+        return schema.read(new BinaryEventReader(data, 2));
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.orderservice.event.codec;
+
+/**
+ * Binary layout of one event type. Fields are numbered; a number is never reused or given a different type, and
+ * new fields get new numbers with {@link #version()} bumped. Readers skip fields they do not know and leave
+ * fields the writer did not send at their defaults, so producers and consumers can be upgraded in either order.
+ */
+public interface EventSchema<T> {
+
+    Class<T> type();
+
+    int version();
+
+    void write(T event, BinaryEventWriter out);
+
+    T read(BinaryEventReader in);
+}
@@ -0,0 +1,160 @@
+package com.ecommerce.orderservice.event.codec;
+
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.event.LogisticsEvent;
+import com.ecommerce.orderservice.event.OrderEvent;
+import com.ecommerce.orderservice.event.PaymentEvent;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schemas of the events this service produces and consumes. Enum values travel as codes from append-only tables
+ * rather than ordinals or names; a code this build does not know reads as null, which the consumers already
+ * treat as an invalid event.
+ */
+public final class EventSchemas {
+    private static final EnumCodes<OrderStatus> ORDER_STATUS = new EnumCodes<>(List.of(
+            OrderStatus.PENDING, OrderStatus.PLACED, OrderStatus.SHIPPED, OrderStatus.OUT_FOR_DELIVERY,
+            OrderStatus.DELIVERED, OrderStatus.CANCELLED, OrderStatus.FAILED, OrderStatus.RETURNED,
+            OrderStatus.ACCEPTED));
+    private static final EnumCodes<PaymentEvent.Status> PAYMENT_STATUS = new EnumCodes<>(List.of(
+            PaymentEvent.Status.PAYMENT_RECEIVED, PaymentEvent.Status.PAYMENT_FAILED, PaymentEvent.Status.REFUNDED));
+    private static final EnumCodes<LogisticsEvent.Status> LOGISTICS_STATUS = new EnumCodes<>(List.of(
+            LogisticsEvent.Status.SHIPPED, LogisticsEvent.Status.OUT_FOR_DELIVERY, LogisticsEvent.Status.DELIVERED));
+
+    public static final EventSchema<OrderEvent> ORDER = new EventSchema<>() {
+        @Override
+        public Class<OrderEvent> type() {
+            return OrderEvent.class;
+        }
+
+        @Override
+        public int version() {
+            return 1;
+        }
+
+        @Override
+        public void write(OrderEvent event, BinaryEventWriter out) {
+            out.writeString(1, event.getOrderId());
+            ORDER_STATUS.write(2, event.getStatus(), out);
+        }
+
+        @Override
+        public OrderEvent read(BinaryEventReader in) {
+            OrderEvent event = new OrderEvent();
+            while (in.nextField()) {
+                switch (in.field()) {
+                    case 1 -> event.setOrderId(in.readString());
+                    case 2 -> event.setStatus(ORDER_STATUS.read(in));
+                    default -> in.skip();
+                }
+            }
+            return event;
+        }
+    };
+
+    public static final EventSchema<PaymentEvent> PAYMENT = new EventSchema<>() {
+        @Override
+        public Class<PaymentEvent> type() {
+            return PaymentEvent.class;
+        }
+
+        @Override
+        public int version() {
+            return 1;
+        }
+
+        @Override
+        public void write(PaymentEvent event, BinaryEventWriter out) {
+            out.writeString(1, event.getOrderId());
+            PAYMENT_STATUS.write(2, event.getStatus(), out);
+            if (event.getReason() != null && !event.getReason().isEmpty()) {
+                out.writeString(3, event.getReason());
+            }
+        }
+
+        @Override
+        public PaymentEvent read(BinaryEventReader in) {
+            PaymentEvent event = new PaymentEvent();
+            while (in.nextField()) {
+                switch (in.field()) {
+                    case 1 -> event.setOrderId(in.readString());
+                    case 2 -> event.setStatus(PAYMENT_STATUS.read(in));
+                    case 3 -> event.setReason(in.readString());
+                    default -> in.skip();
+                }
+            }
+            return event;
+        }
+    };
+
+    public static final EventSchema<LogisticsEvent> LOGISTICS = new EventSchema<>() {
+        @Override
+        public Class<LogisticsEvent> type() {
+            return LogisticsEvent.class;
+        }
+
+        @Override
+        public int version() {
+            return 1;
+        }
+
+        @Override
+        public void write(LogisticsEvent event, BinaryEventWriter out) {
+            out.writeString(1, event.getOrderId());
+            LOGISTICS_STATUS.write(2, event.getStatus(), out);
+        }
+
+        @Override
+        public LogisticsEvent read(BinaryEventReader in) {
+            LogisticsEvent event = new LogisticsEvent();
+            while (in.nextField()) {
+                switch (in.field()) {
+                    case 1 -> event.setOrderId(in.readString());
+                    case 2 -> event.setStatus(LOGISTICS_STATUS.read(in));
+                    default -> in.skip();
+                }
+            }
+            return event;
+        }
+    };
+
+    static final Map<Class<?>, EventSchema<?>> BY_TYPE = Map.of(
+            OrderEvent.class, ORDER,
+            PaymentEvent.class, PAYMENT,
+            LogisticsEvent.class, LOGISTICS);
+
+    private EventSchemas() {
+    }
+
+    static final class EnumCodes<E extends Enum<E>> {
+        private final List<E> values;
+        private final int[] codes;
+
+        EnumCodes(List<E> values) {
+            this.values = values;
+            this.codes = new int[values.get(0).getDeclaringClass().getEnumConstants().length];
+            Arrays.fill(codes, -1);
+            for (int code = 0; code < values.size(); code++) {
+                codes[values.get(code).ordinal()] = code;
+            }
+        }
+
+        void write(int field, E value, BinaryEventWriter out) {
+            if (value == null) {
+                return;
+            }
+            if (codes[value.ordinal()] < 0) {
+                throw new IllegalStateException(value + " has no wire code");
+            }
+            out.writeInt(field, codes[value.ordinal()]);
+        }
+
+        E read(BinaryEventReader in) {
+            int code = in.readInt();
+            return code >= 0 && code < values.size() ? values.get(code) : null;
+        }
+    }
+}
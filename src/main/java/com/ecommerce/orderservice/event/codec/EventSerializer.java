@@ -0,0 +1,57 @@
+package com.ecommerce.orderservice.event.codec;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * Writes events with a schema in {@link EventSchemas} as {@code [MAGIC][schema version][fields]} when the format is
+ * {@link Format#BINARY}; everything else, and everything in {@link Format#JSON}, goes through {@link JsonSerializer}
+ * unchanged. {@link EventDeserializer} reads both, so consumers are switched first and producers after them.
+ */
+public class EventSerializer implements Serializer<Object> {
+    public static final byte MAGIC = (byte) 0xEC;
+    private static final int INITIAL_CAPACITY = 64;
+
+    public enum Format {
+        JSON, BINARY
+    }
+
+    private final Format format;
+    private final JsonSerializer<Object> json = new JsonSerializer<>();
+
+    public EventSerializer(Format format) {
+        this.format = format;
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+        EventSchema<?> schema = format == Format.BINARY ? EventSchemas.BY_TYPE.get(data.getClass()) : null;
+        if (schema == null) {
+            return headers != null ? json.serialize(topic, headers, data) : json.serialize(topic, data);
+        }
+        return encode(schema, data);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> byte[] encode(EventSchema<T> schema, Object event) {
+        BinaryEventWriter out = new BinaryEventWriter(INITIAL_CAPACITY);
+        out.writeByte(MAGIC);
+        out.writeByte(schema.version());
+        schema.write((T) event, out);
+        return out.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
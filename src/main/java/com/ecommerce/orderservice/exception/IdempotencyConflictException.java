@@ -0,0 +1,10 @@
+package com.ecommerce.orderservice.exception;
+
+/**
+ * Answered with 409 Conflict by {@link GlobalExceptionHandler}.
+ */
+public class IdempotencyConflictException extends IllegalArgumentException {
+    public IdempotencyConflictException() {
+        super("An order with this Idempotency-Key already exists and is still being placed, retry later");
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.orderservice.exception;
+
+/**
+ * An Idempotency-Key sent again with a different order. Answered with 422 Unprocessable Entity by
+ * {@link GlobalExceptionHandler}: the request is well formed, but it cannot be applied under that key.
+ */
+public class IdempotencyKeyReusedException extends IllegalArgumentException {
+    public IdempotencyKeyReusedException() {
+        super("Idempotency-Key was already used for a different order");
+    }
+}
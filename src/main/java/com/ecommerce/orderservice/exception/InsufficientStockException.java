@@ -0,0 +1,7 @@
+package com.ecommerce.orderservice.exception;
+
+public class InsufficientStockException extends IllegalArgumentException {
+    public InsufficientStockException(Long productId) {
+        super("Insufficient stock for product ID " + productId);
+    }
+}
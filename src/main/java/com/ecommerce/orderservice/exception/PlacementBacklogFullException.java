@@ -0,0 +1,7 @@
+package com.ecommerce.orderservice.exception;
+
+public class PlacementBacklogFullException extends RuntimeException {
+    public PlacementBacklogFullException() {
+        super("Too many orders waiting to be placed, retry later");
+    }
+}
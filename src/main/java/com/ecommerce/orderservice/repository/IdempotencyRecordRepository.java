@@ -0,0 +1,7 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.entity.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface IdempotencyRecordRepository extends MongoRepository<IdempotencyRecord, String>, IdempotencyRecordRepositoryCustom {
+}
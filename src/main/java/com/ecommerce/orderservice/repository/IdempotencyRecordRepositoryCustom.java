@@ -0,0 +1,24 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.entity.Order;
+
+import java.time.Duration;
+
+public interface IdempotencyRecordRepositoryCustom {
+    /**
+     * Claims the key: inserts an in-progress record, or takes over one whose lock expired without completing.
+     *
+     * @return whether this call holds the key now
+     */
+    boolean tryLock(String id, String fingerprint, Duration lockTtl);
+
+    /**
+     * Stores the outcome of the placement made under the key and ends the lock.
+     */
+    void complete(String id, int responseStatus, Order response);
+
+    /**
+     * Gives up the key after a failed placement so that a retry runs again; a completed record is left alone.
+     */
+    void unlock(String id);
+}
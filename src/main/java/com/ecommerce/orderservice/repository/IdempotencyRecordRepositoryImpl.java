@@ -0,0 +1,54 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.entity.IdempotencyRecord;
+import com.ecommerce.orderservice.entity.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@RequiredArgsConstructor
+public class IdempotencyRecordRepositoryImpl implements IdempotencyRecordRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean tryLock(String id, String fingerprint, Duration lockTtl) {
+        Instant now = Instant.now();
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(id);
+        record.setFingerprint(fingerprint);
+        record.setLockedUntil(now.plus(lockTtl));
+        try {
+            // The unique _id makes the insert the lock: of two replicas racing on one key, one insert fails.
+            mongoTemplate.insert(record);
+            return true;
+        } catch (DuplicateKeyException e) {
+            Query stale = new Query(Criteria.where("_id").is(id)
+                    .and("completed").is(false)
+                    .and("fingerprint").is(fingerprint)
+                    .and("lockedUntil").lt(now));
+            Update takeOver = new Update().set("lockedUntil", now.plus(lockTtl));
+            return mongoTemplate.updateFirst(stale, takeOver, IdempotencyRecord.class).getModifiedCount() == 1;
+        }
+    }
+
+    @Override
+    public void complete(String id, int responseStatus, Order response) {
+        Update update = new Update()
+                .set("completed", true)
+                .set("responseStatus", responseStatus)
+                .set("response", response)
+                .unset("lockedUntil");
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id)), update, IdempotencyRecord.class);
+    }
+
+    @Override
+    public void unlock(String id) {
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(id).and("completed").is(false)), IdempotencyRecord.class);
+    }
+}
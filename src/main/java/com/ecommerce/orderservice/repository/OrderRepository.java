@@ -1,13 +1,17 @@
 package com.ecommerce.orderservice.repository;
 
 import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
-public interface OrderRepository extends MongoRepository<Order, String> {
+public interface OrderRepository extends MongoRepository<Order, String>, OrderRepositoryCustom {
     List<Order> findByUserId(String userId); // Fetch all orders for a specific user (for order history).
     List<Order> findByIdAndUserId(String id, String userId); // Fetch a specific order for a user (for order details).
     List<Order> findAllById(String id);
-    List<Order> findByStatus(String status);
+    List<Order> findByStatus(OrderStatus status);
+    List<Order> findByStatusAndCreatedAtBefore(OrderStatus status, LocalDateTime cutoff, Pageable pageable); // Served by status_created_idx
 }
\ No newline at end of file
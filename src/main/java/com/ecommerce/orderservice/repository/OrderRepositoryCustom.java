@@ -0,0 +1,110 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.dto.OrderSummary;
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface OrderRepositoryCustom {
+    /**
+     * One page of a user's orders from both the active and the archive tier, newest first, strictly after
+     * {@code after} (or from the newest when null).
+     */
+    List<OrderSummary> findHistoryPage(String userId, HistoryCursor after, int limit, boolean includeItems);
+
+    /**
+     * Up to {@code limit} ONLINE orders still PENDING that were created before {@code cutoff}, oldest first, with only
+     * the fields needed to expire them and update the rollups. With {@code shards > 1} only orders of the given
+     * shard are returned.
+     */
+    List<Order> findExpiredPaymentLinks(LocalDateTime cutoff, int shard, int shards, int limit);
+
+    /**
+     * Moves the order from PENDING to FAILED only if it is still PENDING.
+     *
+     * @return whether this call made the transition
+     */
+    boolean expirePaymentLink(String orderId, String reason);
+
+    /**
+     * Moves the order to {@code to} with one findAndModify, only while its status is one of {@code from} and, when
+     * {@code userId} is given, it belongs to that user. Only status, reason (when not null) and version are written.
+     *
+     * @return the order as it was before the transition, or empty if this call did not make it
+     */
+    Optional<Order> transition(String orderId, String userId, Collection<OrderStatus> from, OrderStatus to, String reason);
+
+    /**
+     * Starts a new placement attempt for an order that is still ACCEPTED by incrementing its
+     * {@code reservationAttempt}.
+     *
+     * @return the order as it is after the increment, or empty if it is no longer ACCEPTED
+     */
+    Optional<Order> startReservationAttempt(String orderId);
+
+    /**
+     * Moves an asynchronously accepted order out of ACCEPTED to {@code to} and stores its total, only while it is
+     * still ACCEPTED and {@code reservationAttempt} is still its latest attempt.
+     *
+     * @return the order as it is after the move, or empty if this call did not make it
+     */
+    Optional<Order> completeAcceptance(String orderId, int reservationAttempt, BigDecimal totalAmount, OrderStatus to);
+
+    /**
+     * Applies all changes in one unordered bulk write. A change whose order has moved on from its expected status
+     * is skipped.
+     *
+     * @return ids of the orders that now carry the status written for them
+     */
+    Set<String> applyStatusChanges(List<StatusChange> changes);
+
+    /**
+     * A user's orders from both tiers, newest first, read lazily from server-side cursors. The caller must close
+     * the stream.
+     */
+    Stream<Order> streamForExport(String userId, OrderStatus status, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Orders of the active or the archive tier with an id in {@code [fromId, toId)}, in id order, with only the
+     * fields the order rollups are computed from, read lazily through the {@code _id} index. Ids are generated when
+     * an order is created, so {@link #firstIdAt} turns a creation time range into an id range. The caller must close
+     * the stream.
+     */
+    Stream<Order> streamForRollups(String fromId, String toId, boolean archived);
+
+    /**
+     * The lowest order id that can be generated at {@code time}, at one-second precision.
+     */
+    static String firstIdAt(Instant time) {
+        return String.format("%08x%016x", time.getEpochSecond(), 0);
+    }
+
+    /**
+     * Id of the oldest order in either tier.
+     */
+    Optional<String> findOldestId();
+
+    Optional<Order> findArchivedById(String id);
+
+    /**
+     * Up to {@code limit} orders in one of {@code statuses} that were created before {@code cutoff}.
+     */
+    List<Order> findArchivable(Collection<OrderStatus> statuses, LocalDateTime cutoff, int limit);
+
+    /**
+     * Copies the orders into the archive tier, replacing earlier copies, then deletes them from the active tier
+     * unless their version changed since they were read. An order that did change stays active, and its copy is
+     * replaced when it is archived again.
+     *
+     * @return the number of orders deleted from the active tier
+     */
+    int moveToArchive(List<Order> orders);
+}
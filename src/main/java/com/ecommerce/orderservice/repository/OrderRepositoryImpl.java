@@ -0,0 +1,323 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.dto.OrderSummary;
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.mongodb.MongoCommandException;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.IndexOptions;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.MongoExpression;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+@RequiredArgsConstructor
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+    private static final String ARCHIVE_COLLECTION = "orders_archive";
+    private static final int EXPORT_BATCH_SIZE = 500;
+    private static final int NAMESPACE_EXISTS = 48;
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Keyset pagination over the {@code userId, createdAt, _id} index of both tiers: the page boundary is a range
+     * predicate, so deep pages cost the same as the first one, unlike skip/offset. Each tier returns at most one
+     * page and the two are merged newest first.
+     */
+    @Override
+    public List<OrderSummary> findHistoryPage(String userId, HistoryCursor after, int limit, boolean includeItems) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (after != null) {
+            criteria = criteria.orOperator(
+                    Criteria.where("createdAt").lt(after.createdAt()),
+                    Criteria.where("createdAt").is(after.createdAt()).and("_id").lt(idValue(after.id()))
+            );
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .limit(limit);
+        query.fields().include("status", "totalAmount", "paymentMethod", "reason", "createdAt");
+        if (includeItems) {
+            query.fields().include("items");
+        }
+        List<OrderSummary> active = mongoTemplate.find(query, OrderSummary.class,
+                mongoTemplate.getCollectionName(Order.class));
+        List<OrderSummary> archived = mongoTemplate.find(query, OrderSummary.class, ARCHIVE_COLLECTION);
+        if (archived.isEmpty()) {
+            return active;
+        }
+        List<OrderSummary> page = new ArrayList<>(limit);
+        newestFirst(active.iterator(), archived.iterator(), OrderSummary::getCreatedAt, OrderSummary::getId)
+                .forEachRemaining(order -> {
+                    if (page.size() < limit) {
+                        page.add(order);
+                    }
+                });
+        return page;
+    }
+
+    @Override
+    public List<Order> findExpiredPaymentLinks(LocalDateTime cutoff, int shard, int shards, int limit) {
+        // Served by the status_payment_created_idx index; the shard filter only runs on the matching range.
+        Criteria criteria = Criteria.where("status").is(OrderStatus.PENDING)
+                .and("paymentMethod").is(Order.PaymentMethod.ONLINE)
+                .and("createdAt").lt(cutoff);
+        if (shards > 1) {
+            criteria = new Criteria().andOperator(criteria, Criteria.expr(MongoExpression.create(
+                    "{ $eq: [ { $mod: [ { $toLong: '$createdAt' }, ?0 ] }, ?1 ] }", shards, shard)));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"))
+                .limit(limit);
+        query.fields().include("userId", "items", "totalAmount", "status", "createdAt", "version",
+                "reservationAttempt");
+        return mongoTemplate.find(query, Order.class);
+    }
+
+    @Override
+    public boolean expirePaymentLink(String orderId, String reason) {
+        Query query = new Query(Criteria.where("_id").is(orderId).and("status").is(OrderStatus.PENDING));
+        Update update = new Update().set("status", OrderStatus.FAILED).set("reason", reason).inc("version", 1);
+        return mongoTemplate.updateFirst(query, update, Order.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public Optional<Order> transition(String orderId, String userId, Collection<OrderStatus> from, OrderStatus to,
+                                      String reason) {
+        Criteria criteria = Criteria.where("_id").is(orderId).and("status").in(from);
+        if (userId != null) {
+            criteria = criteria.and("userId").is(userId);
+        }
+        Update update = new Update().set("status", to).inc("version", 1);
+        if (reason != null) {
+            update.set("reason", reason);
+        }
+        return Optional.ofNullable(mongoTemplate.findAndModify(new Query(criteria), update, Order.class));
+    }
+
+    @Override
+    public Optional<Order> startReservationAttempt(String orderId) {
+        Query query = new Query(Criteria.where("_id").is(orderId).and("status").is(OrderStatus.ACCEPTED));
+        Update update = new Update().inc("reservationAttempt", 1);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Order.class));
+    }
+
+    @Override
+    public Optional<Order> completeAcceptance(String orderId, int reservationAttempt, BigDecimal totalAmount,
+                                              OrderStatus to) {
+        Query query = new Query(Criteria.where("_id").is(orderId).and("status").is(OrderStatus.ACCEPTED)
+                .and("reservationAttempt").is(reservationAttempt));
+        Update update = new Update().set("status", to).set("totalAmount", totalAmount).inc("version", 1);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Order.class));
+    }
+
+    @Override
+    public Set<String> applyStatusChanges(List<StatusChange> changes) {
+        if (changes.isEmpty()) {
+            return Set.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        Map<String, OrderStatus> written = new HashMap<>();
+        for (StatusChange change : changes) {
+            Query query = new Query(Criteria.where("_id").is(change.orderId()).and("status").is(change.expectedStatus()));
+            Update update = new Update().set("status", change.newStatus()).inc("version", 1);
+            if (change.reason() != null) {
+                update.set("reason", change.reason());
+            }
+            bulk.updateOne(query, update);
+            written.put(change.orderId(), change.newStatus());
+        }
+        BulkWriteResult result = bulk.execute();
+        if (result.getMatchedCount() == changes.size()) {
+            return new HashSet<>(written.keySet());
+        }
+
+        // Some orders moved on concurrently; one read tells which writes landed.
+        Query query = new Query(Criteria.where("_id").in(written.keySet()));
+        query.fields().include("status");
+        return mongoTemplate.find(query, Order.class).stream()
+                .filter(order -> written.get(order.getId()) == order.getStatus())
+                .map(Order::getId)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Stream<Order> streamForExport(String userId, OrderStatus status, LocalDateTime from, LocalDateTime to) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (status != null) {
+            criteria = criteria.and("status").is(status);
+        }
+        if (from != null || to != null) {
+            Criteria createdAt = criteria.and("createdAt");
+            if (from != null) {
+                createdAt.gte(from);
+            }
+            if (to != null) {
+                createdAt.lt(to);
+            }
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .cursorBatchSize(EXPORT_BATCH_SIZE);
+        Stream<Order> active = mongoTemplate.stream(query, Order.class);
+        Stream<Order> archived = mongoTemplate.stream(query, Order.class, ARCHIVE_COLLECTION);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                        newestFirst(active.iterator(), archived.iterator(), Order::getCreatedAt, Order::getId),
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(active::close)
+                .onClose(archived::close);
+    }
+
+    @Override
+    public Stream<Order> streamForRollups(String fromId, String toId, boolean archived) {
+        Query query = new Query(Criteria.where("_id").gte(new ObjectId(fromId)).lt(new ObjectId(toId)))
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .cursorBatchSize(EXPORT_BATCH_SIZE);
+        query.fields().include("userId", "status", "totalAmount", "createdAt");
+        return archived
+                ? mongoTemplate.stream(query, Order.class, ARCHIVE_COLLECTION)
+                : mongoTemplate.stream(query, Order.class);
+    }
+
+    @Override
+    public Optional<String> findOldestId() {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).limit(1);
+        query.fields().include("_id");
+        return Stream.of(mongoTemplate.findOne(query, Order.class),
+                        mongoTemplate.findOne(query, Order.class, ARCHIVE_COLLECTION))
+                .filter(Objects::nonNull)
+                .map(Order::getId)
+                .min(Comparator.naturalOrder());
+    }
+
+    @Override
+    public Optional<Order> findArchivedById(String id) {
+        return Optional.ofNullable(mongoTemplate.findById(id, Order.class, ARCHIVE_COLLECTION));
+    }
+
+    @Override
+    public List<Order> findArchivable(Collection<OrderStatus> statuses, LocalDateTime cutoff, int limit) {
+        // Served by status_created_idx: one range per status.
+        Query query = new Query(Criteria.where("status").in(statuses).and("createdAt").lt(cutoff)).limit(limit);
+        return mongoTemplate.find(query, Order.class);
+    }
+
+    @Override
+    public int moveToArchive(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        ensureArchive();
+        BulkOperations copies = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class,
+                ARCHIVE_COLLECTION);
+        for (Order order : orders) {
+            // A replace rather than an insert, so a batch interrupted after this step can simply run again.
+            copies.replaceOne(new Query(Criteria.where("_id").is(order.getId())), order,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        copies.execute();
+
+        BulkOperations removals = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        for (Order order : orders) {
+            removals.remove(new Query(Criteria.where("_id").is(order.getId()).and("version").is(order.getVersion())));
+        }
+        return removals.execute().getDeletedCount();
+    }
+
+    /**
+     * The archive is only ever scanned by user and fetched by id, so it carries the history index alone, and its
+     * blocks are compressed with zstd rather than the default snappy.
+     */
+    private void ensureArchive() {
+        if (!mongoTemplate.collectionExists(ARCHIVE_COLLECTION)) {
+            try {
+                mongoTemplate.getDb().createCollection(ARCHIVE_COLLECTION, new CreateCollectionOptions()
+                        .storageEngineOptions(new Document("wiredTiger",
+                                new Document("configString", "block_compressor=zstd"))));
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() != NAMESPACE_EXISTS) {
+                    throw e;
+                }
+            }
+        }
+        // A no-op once the index exists; run every time so that a crash right after creating the collection
+        // cannot leave the archive without it.
+        mongoTemplate.getCollection(ARCHIVE_COLLECTION).createIndex(
+                new Document("userId", 1).append("createdAt", -1).append("_id", -1),
+                new IndexOptions().name("user_created_idx"));
+    }
+
+    /**
+     * Merges two iterators that are each sorted newest first by {@code createdAt, id}. An order present in both,
+     * which happens while it is being archived, is returned once, from {@code active}.
+     */
+    private static <T> Iterator<T> newestFirst(Iterator<T> active, Iterator<T> archived,
+                                               Function<T, LocalDateTime> createdAt, Function<T, String> id) {
+        Comparator<T> newest = Comparator.comparing(createdAt).thenComparing(id).reversed();
+        return new Iterator<>() {
+            private T nextActive = active.hasNext() ? active.next() : null;
+            private T nextArchived = archived.hasNext() ? archived.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextActive != null || nextArchived != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (nextArchived == null
+                        || nextActive != null && newest.compare(nextActive, nextArchived) < 0) {
+                    T order = nextActive;
+                    nextActive = active.hasNext() ? active.next() : null;
+                    return order;
+                }
+                if (nextActive != null && id.apply(nextActive).equals(id.apply(nextArchived))) {
+                    nextArchived = archived.hasNext() ? archived.next() : null;
+                    return next();
+                }
+                T order = nextArchived;
+                nextArchived = archived.hasNext() ? archived.next() : null;
+                return order;
+            }
+        };
+    }
+
+    private static Object idValue(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxRepository extends MongoRepository<OutboxEvent, String> {
+    List<OutboxEvent> findByOrderByIdAsc(Pageable pageable); // Oldest unpublished events first
+
+    List<OutboxEvent> findByOrderIdInOrderByVersionAscIdAsc(Collection<String> orderIds); // Served by order_version_idx
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.entity.ProcessedEvent;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface ProcessedEventRepository extends MongoRepository<ProcessedEvent, String>, ProcessedEventRepositoryCustom {
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.entity.ProcessedEvent;
+
+import java.util.List;
+
+public interface ProcessedEventRepositoryCustom {
+    /**
+     * Inserts all markers in one unordered bulk write; markers that already exist are left as they are.
+     */
+    void insertIgnoringDuplicates(List<ProcessedEvent> events);
+}
@@ -0,0 +1,10 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.entity.OrderStatus;
+
+/**
+ * A status write that only applies while the order still has {@code expectedStatus}. A null {@code reason} leaves
+ * the stored reason untouched.
+ */
+public record StatusChange(String orderId, OrderStatus expectedStatus, OrderStatus newStatus, String reason) {
+}
@@ -0,0 +1,101 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.ProcessedEvent;
+import com.ecommerce.orderservice.repository.ProcessedEventRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Drops consumed events that were already handled, identified by topic, order id and status. A bounded LRU of
+ * recent identities answers most redeliveries in memory; the rest are checked against {@code processed_events}
+ * with one query per batch. Identities are recorded only after the events were handled, so a crash in between
+ * leads to a redelivery, never to a lost event.
+ */
+@Service
+public class EventDeduplicator {
+    private final ProcessedEventRepository processedEventRepository;
+    private final Cache<String, Boolean> recent;
+
+    private final Counter memoryHits;
+    private final Counter storeHits;
+    private final Counter storeMisses;
+
+    public EventDeduplicator(
+            ProcessedEventRepository processedEventRepository,
+            MeterRegistry meterRegistry,
+            @Value("${order.dedup.cache-size:100000}") long cacheSize,
+            @Value("${order.dedup.cache-ttl:1h}") Duration cacheTtl
+    ) {
+        this.processedEventRepository = processedEventRepository;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recent, "processed-events");
+        this.memoryHits = Counter.builder("order.dedup.duplicates").tag("tier", "memory").register(meterRegistry);
+        this.storeHits = Counter.builder("order.dedup.duplicates").tag("tier", "store").register(meterRegistry);
+        this.storeMisses = Counter.builder("order.dedup.store.misses")
+                .description("Events looked up in processed_events that turned out to be new")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the events of the batch not handled before, in their original order, with repeats inside the batch
+     * removed as well
+     */
+    public <T> List<T> filterNew(String topic, List<T> events, Function<T, String> identity) {
+        Map<String, T> candidates = new LinkedHashMap<>();
+        for (T event : events) {
+            String key = key(topic, identity.apply(event));
+            if (recent.getIfPresent(key) != null) {
+                memoryHits.increment();
+            } else if (candidates.putIfAbsent(key, event) != null) {
+                memoryHits.increment();
+            }
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> handled = new HashSet<>();
+        processedEventRepository.findAllById(candidates.keySet()).forEach(event -> handled.add(event.getId()));
+        List<T> fresh = new ArrayList<>(candidates.size());
+        candidates.forEach((key, event) -> {
+            if (handled.contains(key)) {
+                storeHits.increment();
+                recent.put(key, Boolean.TRUE);
+            } else {
+                storeMisses.increment();
+                fresh.add(event);
+            }
+        });
+        return fresh;
+    }
+
+    public <T> void markProcessed(String topic, List<T> events, Function<T, String> identity) {
+        List<ProcessedEvent> markers = events.stream()
+                .map(event -> new ProcessedEvent(key(topic, identity.apply(event))))
+                .toList();
+        processedEventRepository.insertIgnoringDuplicates(markers);
+        markers.forEach(marker -> recent.put(marker.getId(), Boolean.TRUE));
+    }
+
+    private static String key(String topic, String identity) {
+        return topic + ":" + identity;
+    }
+}
@@ -0,0 +1,206 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.dto.PlacementResult;
+import com.ecommerce.orderservice.entity.IdempotencyRecord;
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.exception.IdempotencyConflictException;
+import com.ecommerce.orderservice.exception.IdempotencyKeyReusedException;
+import com.ecommerce.orderservice.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs an order placement at most once per user and {@code Idempotency-Key} and answers repeats with the first
+ * outcome. Cheapest tier first: a repeat that arrives while the first request still runs on this instance waits
+ * for it and shares its outcome; completed outcomes are kept in a bounded in-memory cache; {@code idempotency_keys}
+ * keeps them for a day and, through its unique key, lets only one replica run the placement while repeats on other
+ * replicas wait for its outcome. A failed placement leaves nothing behind, so the client's retry runs again.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final IdempotencyRecordRepository repository;
+    private final Duration lockTtl;
+    private final Duration waitTimeout;
+    private final Cache<String, Outcome> completed;
+    private final ConcurrentMap<String, CompletableFuture<Outcome>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter inFlightReplays;
+    private final Counter memoryReplays;
+    private final Counter storeReplays;
+
+    public IdempotencyService(
+            IdempotencyRecordRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${order.idempotency.cache-size:10000}") long cacheSize,
+            @Value("${order.idempotency.cache-ttl:10m}") Duration cacheTtl,
+            @Value("${order.idempotency.lock-ttl:2m}") Duration lockTtl,
+            @Value("${order.idempotency.wait-timeout:30s}") Duration waitTimeout
+    ) {
+        this.repository = repository;
+        this.lockTtl = lockTtl;
+        this.waitTimeout = waitTimeout;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotency-keys");
+        this.inFlightReplays = Counter.builder("order.idempotency.replays").tag("tier", "in-flight").register(meterRegistry);
+        this.memoryReplays = Counter.builder("order.idempotency.replays").tag("tier", "memory").register(meterRegistry);
+        this.storeReplays = Counter.builder("order.idempotency.replays").tag("tier", "store").register(meterRegistry);
+    }
+
+    public PlacementResult execute(String userId, String key, String fingerprint, Supplier<PlacementResult> placement) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = userId + ":" + key;
+
+        Outcome cached = completed.getIfPresent(id);
+        if (cached != null) {
+            memoryReplays.increment();
+            return cached.replayFor(fingerprint);
+        }
+
+        CompletableFuture<Outcome> mine = new CompletableFuture<>();
+        CompletableFuture<Outcome> running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            inFlightReplays.increment();
+            return await(running).replayFor(fingerprint);
+        }
+        try {
+            Outcome outcome = runOnce(id, fingerprint, placement);
+            mine.complete(outcome);
+            return outcome.replayed() ? outcome.replayFor(fingerprint) : outcome.result(false);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    private Outcome runOnce(String id, String fingerprint, Supplier<PlacementResult> placement) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (!repository.tryLock(id, fingerprint, lockTtl)) {
+            Optional<IdempotencyRecord> existing = repository.findById(id);
+            if (existing.isPresent() && existing.get().isCompleted()) {
+                storeReplays.increment();
+                IdempotencyRecord record = existing.get();
+                Outcome outcome = new Outcome(record.getFingerprint(), record.getResponseStatus(), record.getResponse(), true);
+                completed.put(id, outcome);
+                return outcome;
+            }
+            if (existing.isPresent() && !existing.get().getFingerprint().equals(fingerprint)) {
+                throw keyReused();
+            }
+            // Another replica is placing this order; wait for its outcome.
+            if (System.nanoTime() > deadline) {
+                throw new IdempotencyConflictException();
+            }
+            pause();
+        }
+
+        PlacementResult result;
+        try {
+            result = placement.get();
+        } catch (RuntimeException e) {
+            repository.unlock(id);
+            throw e;
+        }
+        try {
+            repository.complete(id, result.getStatus(), result.getOrder());
+        } catch (RuntimeException e) {
+            // The order exists; this instance still answers repeats from memory, other replicas once the lock expires.
+            log.error("Failed to record outcome for idempotency key {}: {}", id, e.getMessage());
+        }
+        Outcome outcome = new Outcome(fingerprint, result.getStatus(), result.getOrder(), false);
+        completed.put(id, outcome);
+        return outcome;
+    }
+
+    private Outcome await(CompletableFuture<Outcome> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // The first request failed; its repeats fail the same way and the client may retry.
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException();
+        }
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException();
+        }
+    }
+
+    /**
+     * Hash of what makes two placement requests the same order: payment method and lines, in request order.
+     */
+    public static String fingerprint(Order order) {
+        StringBuilder canonical = new StringBuilder(String.valueOf(order.getPaymentMethod()));
+        if (order.getItems() != null) {
+            order.getItems().forEach(item ->
+                    canonical.append('|').append(item.getProductId()).append('x').append(item.getQuantity()));
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static IdempotencyKeyReusedException keyReused() {
+        return new IdempotencyKeyReusedException();
+    }
+
+    private record Outcome(String fingerprint, int status, Order order, boolean replayed) {
+
+        PlacementResult replayFor(String requestFingerprint) {
+            if (!fingerprint.equals(requestFingerprint)) {
+                throw keyReused();
+            }
+            return result(true);
+        }
+
+        PlacementResult result(boolean replay) {
+            return new PlacementResult(status, order, replay);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moves orders in a final status that were created more than {@code order.archive.min-age} ago from {@code orders}
+ * to the compressed archive tier, so the active collection and its indexes only hold orders that can still change.
+ * The age counts from creation, not from the last status change, which orders do not record. History, details and
+ * export read both tiers.
+ * <p>
+ * Each batch copies its orders to the archive and then deletes them from {@code orders}, both idempotent, so the
+ * job keeps no checkpoint: whatever a crash interrupted is still in {@code orders} and the next batch picks it up.
+ * One replica archives at a time, under a lease that it renews before every batch; a replica that finds its lease
+ * taken stops. DELIVERED orders stay active: they can be returned for as long as there is no return window.
+ */
+@Service
+@Slf4j
+public class OrderArchiver {
+    private static final String LEASE = "order-archive";
+    private static final Set<OrderStatus> FINAL_STATUSES = EnumSet.of(
+            OrderStatus.CANCELLED, OrderStatus.RETURNED, OrderStatus.FAILED);
+
+    private final OrderRepository orderRepository;
+    private final ShardLeaseService shardLeaseService;
+    private final Duration minAge;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Duration leaseTtl;
+
+    private final Counter archived;
+    private final Counter skipped;
+    private final Timer batchTimer;
+
+    public OrderArchiver(
+            OrderRepository orderRepository,
+            ShardLeaseService shardLeaseService,
+            MeterRegistry meterRegistry,
+            @Value("${order.archive.min-age:90d}") Duration minAge,
+            @Value("${order.archive.batch-size:500}") int batchSize,
+            @Value("${order.archive.max-batches:100}") int maxBatches,
+            @Value("${order.archive.lease-ttl:10m}") Duration leaseTtl
+    ) {
+        this.orderRepository = orderRepository;
+        this.shardLeaseService = shardLeaseService;
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.leaseTtl = leaseTtl;
+        this.archived = Counter.builder("order.archive.archived")
+                .description("Orders moved to the archive tier")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("order.archive.skipped")
+                .description("Orders left active because they changed while being archived")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("order.archive.batch").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${order.archive.interval-ms:3600000}")
+    public void scheduledArchive() {
+        archive();
+    }
+
+    /**
+     * Archives up to {@code max-batches} batches of eligible orders, for as long as this replica holds the lease.
+     *
+     * @return the number of orders moved to the archive tier
+     */
+    public long archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(minAge);
+        long moved = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            if (!shardLeaseService.tryAcquire(LEASE, leaseTtl)) {
+                if (batch > 0) {
+                    log.warn("Lost the archive lease after {} batches, {} orders moved", batch, moved);
+                }
+                return moved;
+            }
+            List<Order> orders = orderRepository.findArchivable(FINAL_STATUSES, cutoff, batchSize);
+            if (orders.isEmpty()) {
+                return moved;
+            }
+            int removed = batchTimer.record(() -> orderRepository.moveToArchive(orders));
+            archived.increment(removed);
+            skipped.increment(orders.size() - removed);
+            moved += removed;
+            if (orders.size() < batchSize) {
+                return moved;
+            }
+        }
+        log.info("Order archival still has a backlog after {} batches, {} orders moved", maxBatches, moved);
+        return moved;
+    }
+}
@@ -0,0 +1,66 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.repository.OrderRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Read-through, size-bounded cache of orders by id for the order details endpoint, which clients poll while an
+ * order is in transit. Entries are keyed by id only and the owner is checked on every read. {@link OrderService}
+ * invalidates an order after each status change it commits; changes made by other replicas arrive through
+ * {@code ORDER_EVENTS}, and the TTL bounds staleness should an event be missed. Cached orders are shared between
+ * readers and must not be modified.
+ */
+@Component
+@Slf4j
+public class OrderDetailsCache {
+    private final OrderRepository orderRepository;
+    private final Cache<String, Order> cache;
+
+    public OrderDetailsCache(
+            OrderRepository orderRepository,
+            MeterRegistry meterRegistry,
+            @Value("${order.details-cache.max-size:10000}") long maxSize,
+            @Value("${order.details-cache.ttl:30s}") Duration ttl
+    ) {
+        this.orderRepository = orderRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "order-details");
+    }
+
+    /**
+     * The order, if it exists in either tier and belongs to the user. Orders that do not exist are not cached.
+     */
+    public Optional<Order> find(String orderId, String userId) {
+        // An invalidation that starts while this load runs waits for it and then drops what it loaded.
+        Order order = cache.get(orderId, id -> orderRepository.findById(id)
+                .or(() -> orderRepository.findArchivedById(id))
+                .orElse(null));
+        return order != null && userId.equals(order.getUserId()) ? Optional.of(order) : Optional.empty();
+    }
+
+    public void invalidate(String orderId) {
+        cache.invalidate(orderId);
+    }
+
+    public void invalidateAll(Collection<String> orderIds) {
+        if (!orderIds.isEmpty()) {
+            log.debug("Invalidating {} cached orders", orderIds.size());
+            cache.invalidateAll(orderIds);
+        }
+    }
+}
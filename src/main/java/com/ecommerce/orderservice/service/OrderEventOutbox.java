@@ -0,0 +1,48 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.entity.OutboxEvent;
+import com.ecommerce.orderservice.event.OrderEvent;
+import com.ecommerce.orderservice.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Records ORDER_EVENTS for {@link OutboxRelay} to publish. Call it inside the transaction that stores the order
+ * change, so an event exists exactly when its change was committed. Every event carries the order's version after
+ * the change, which the relay publishes an order's events by.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderEventOutbox {
+    public static final String ORDER_EVENTS_TOPIC = "ORDER_EVENTS";
+
+    private final OutboxRepository outboxRepository;
+
+    public void append(String orderId, OrderStatus status, long version) {
+        OrderEvent event = new OrderEvent();
+        event.setOrderId(orderId);
+        event.setStatus(status);
+        appendAll(List.of(event), ignored -> version);
+    }
+
+    /**
+     * @param versions the version of each order after the change, by order id
+     */
+    public void appendAll(List<OrderEvent> events, ToLongFunction<String> versions) {
+        if (events.isEmpty()) {
+            return;
+        }
+        outboxRepository.insert(events.stream().map(event -> {
+            OutboxEvent outboxEvent = new OutboxEvent();
+            outboxEvent.setTopic(ORDER_EVENTS_TOPIC);
+            outboxEvent.setOrderId(event.getOrderId());
+            outboxEvent.setStatus(event.getStatus());
+            outboxEvent.setVersion(versions.applyAsLong(event.getOrderId()));
+            return outboxEvent;
+        }).toList());
+    }
+}
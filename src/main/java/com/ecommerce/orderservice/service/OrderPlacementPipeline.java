@@ -0,0 +1,174 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.exception.PlacementBacklogFullException;
+import com.ecommerce.orderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Asynchronous order placement. {@link #accept} stores the order as ACCEPTED and queues it; the workers of
+ * {@code orderPlacementExecutor} then run {@link OrderService#completePlacement} for it, so the request never waits on
+ * the product or payment service. The backlog is bounded: once {@code workers + queue-capacity} orders are in flight,
+ * accept refuses new ones before storing anything and clients are told to retry. A placement that fails for any
+ * reason other than the order itself, such as a downstream outage or an open circuit, is retried up to
+ * {@code max-attempts} times and the order is then failed. Orders left ACCEPTED by a restart are queued again by a
+ * periodic sweep.
+ */
+@Service
+@Slf4j
+public class OrderPlacementPipeline {
+    private static final String RECOVERY_LEASE = "placement-recovery";
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final ShardLeaseService shardLeaseService;
+    private final TaskExecutor executor;
+    private final Semaphore backlog;
+    private final Duration staleAfter;
+    private final int recoveryBatchSize;
+    private final Duration leaseTtl;
+    private final RetryTemplate retryTemplate;
+
+    private final Counter rejected;
+    private final Counter recovered;
+    private final Timer completed;
+    private final Timer failed;
+
+    public OrderPlacementPipeline(
+            OrderService orderService,
+            OrderRepository orderRepository,
+            ShardLeaseService shardLeaseService,
+            @Qualifier("orderPlacementExecutor") TaskExecutor executor,
+            MeterRegistry meterRegistry,
+            @Value("${order.placement.workers:16}") int workers,
+            @Value("${order.placement.queue-capacity:1000}") int queueCapacity,
+            @Value("${order.placement.stale-after:2m}") Duration staleAfter,
+            @Value("${order.placement.recovery-batch-size:200}") int recoveryBatchSize,
+            @Value("${order.placement.lease-ttl:50s}") Duration leaseTtl,
+            @Value("${order.placement.max-attempts:3}") int maxAttempts,
+            @Value("${order.placement.retry-backoff:2s}") Duration retryBackoff
+    ) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.shardLeaseService = shardLeaseService;
+        this.executor = executor;
+        this.backlog = new Semaphore(workers + queueCapacity);
+        this.staleAfter = staleAfter;
+        this.recoveryBatchSize = recoveryBatchSize;
+        this.leaseTtl = leaseTtl;
+        this.retryTemplate = RetryTemplate.builder()
+                .maxAttempts(maxAttempts)
+                .fixedBackoff(retryBackoff.toMillis())
+                .build();
+        int capacity = workers + queueCapacity;
+        Gauge.builder("order.placement.backlog", backlog, permits -> capacity - permits.availablePermits())
+                .description("Accepted orders queued or being placed on this instance")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("order.placement.rejected")
+                .description("Orders refused because the placement backlog was full")
+                .register(meterRegistry);
+        this.recovered = Counter.builder("order.placement.recovered").register(meterRegistry);
+        this.completed = Timer.builder("order.placement.duration").tag("outcome", "completed").register(meterRegistry);
+        this.failed = Timer.builder("order.placement.duration").tag("outcome", "failed").register(meterRegistry);
+    }
+
+    public Order accept(Order order, String userId) {
+        if (!backlog.tryAcquire()) {
+            rejected.increment();
+            throw new PlacementBacklogFullException();
+        }
+        Order accepted;
+        try {
+            accepted = orderService.acceptOrder(order, userId);
+        } catch (RuntimeException e) {
+            backlog.release();
+            throw e;
+        }
+        submit(accepted);
+        return accepted;
+    }
+
+    /**
+     * Queues orders that have been ACCEPTED for longer than {@code stale-after}, typically because the instance that
+     * accepted them stopped. If the first run is in fact still going, the two runs reserve under different attempts and
+     * only the later one can place the order; the other returns its stock, see {@link OrderService#completePlacement}.
+     */
+    @Scheduled(fixedDelayString = "${order.placement.recovery-interval-ms:60000}")
+    public void recoverStalledPlacements() {
+        if (!shardLeaseService.tryAcquire(RECOVERY_LEASE, leaseTtl)) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(staleAfter);
+        List<Order> stalled = orderRepository.findByStatusAndCreatedAtBefore(OrderStatus.ACCEPTED, cutoff,
+                PageRequest.of(0, recoveryBatchSize, Sort.by("createdAt")));
+        for (Order order : stalled) {
+            if (!backlog.tryAcquire()) {
+                log.info("Placement backlog full, remaining stalled orders left for the next sweep");
+                return;
+            }
+            recovered.increment();
+            submit(order);
+        }
+    }
+
+    /**
+     * Must be called holding a backlog permit; the permit is given back once the order has been processed.
+     */
+    private void submit(Order order) {
+        try {
+            executor.execute(() -> {
+                try {
+                    complete(order);
+                } finally {
+                    backlog.release();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // Only on shutdown: the order stays ACCEPTED and the recovery sweep picks it up.
+            backlog.release();
+            log.warn("Could not queue placement of order {}: {}", order.getId(), e.getMessage());
+        }
+    }
+
+    private void complete(Order order) {
+        Timer.Sample sample = Timer.start();
+        try {
+            retryTemplate.execute(context -> {
+                if (context.getRetryCount() > 0) {
+                    log.info("Retrying placement of order {}, attempt {}", order.getId(), context.getRetryCount() + 1);
+                }
+                orderService.completePlacement(order);
+                return null;
+            });
+            sample.stop(completed);
+        } catch (RuntimeException e) {
+            sample.stop(failed);
+            log.warn("Placement of order {} failed: {}", order.getId(), e.getMessage());
+            try {
+                orderService.failPlacement(order, "placement failed: " + e.getMessage());
+            } catch (RuntimeException failure) {
+                // Still ACCEPTED; the recovery sweep tries it again.
+                log.error("Could not fail order {}: {}", order.getId(), failure.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.client.Product;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * The arithmetic of pricing an order, kept apart from {@link OrderService} so it can be benchmarked on its own.
+ */
+final class OrderPricing {
+
+    private OrderPricing() {
+    }
+
+    /**
+     * Sum of price times quantity over the order lines.
+     */
+    static BigDecimal total(Map<Long, Integer> quantities, Map<Long, Product> products) {
+        BigDecimal totalAmount = BigDecimal.ZERO;
+
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Product product = products.get(line.getKey());
+            // A catalog entry without a price cannot be sold; treat it like a product the catalog does not know.
+            if (product == null || product.getPrice() == null) {
+                throw new IllegalArgumentException("Product with ID " + line.getKey() + " not found");
+            }
+            BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(line.getValue()));
+            totalAmount = totalAmount.add(itemTotal);
+        }
+
+        if (totalAmount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Total amount must be positive");
+        }
+        return totalAmount;
+    }
+}
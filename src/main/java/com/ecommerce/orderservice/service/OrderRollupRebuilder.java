@@ -0,0 +1,153 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.repository.OrderRepository;
+import com.ecommerce.orderservice.repository.OrderRepositoryCustom;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Recomputes the {@link OrderRollups} documents from the orders of both tiers and overwrites them, correcting
+ * increments that were lost to failures, and removes the documents of users and hours left without orders. The
+ * creation time range of all orders is split into chunks that are read in parallel through the {@code _id} index
+ * and tallied separately; the tallies are merged in memory and written in bulk.
+ * <p>
+ * Runs nightly on the replica that wins the lease. Increments that land between a chunk being read and the totals
+ * being written are overwritten, so the rebuild is scheduled for the quietest hour and the next run absorbs them.
+ */
+@Service
+@Slf4j
+public class OrderRollupRebuilder {
+    private static final String LEASE = "order-rollup-rebuild";
+
+    private final OrderRepository orderRepository;
+    private final OrderRollups orderRollups;
+    private final ShardLeaseService shardLeaseService;
+    private final TaskExecutor executor;
+    private final int chunks;
+    private final int writeBatchSize;
+    private final int sliceSize;
+    private final Duration leaseTtl;
+    private final Timer rebuildTimer;
+
+    public OrderRollupRebuilder(
+            OrderRepository orderRepository,
+            OrderRollups orderRollups,
+            ShardLeaseService shardLeaseService,
+            @Qualifier("rollupRebuildExecutor") TaskExecutor executor,
+            MeterRegistry meterRegistry,
+            @Value("${order.rollups.rebuild-chunks:32}") int chunks,
+            @Value("${order.rollups.write-batch-size:1000}") int writeBatchSize,
+            @Value("${order.rollups.slice-size:10000}") int sliceSize,
+            @Value("${order.rollups.lease-ttl:1h}") Duration leaseTtl
+    ) {
+        this.orderRepository = orderRepository;
+        this.orderRollups = orderRollups;
+        this.shardLeaseService = shardLeaseService;
+        this.executor = executor;
+        this.chunks = chunks;
+        this.writeBatchSize = writeBatchSize;
+        this.sliceSize = sliceSize;
+        this.leaseTtl = leaseTtl;
+        this.rebuildTimer = Timer.builder("order.rollups.rebuild").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${order.rollups.rebuild-cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        // The lease outlives the run, so replicas whose clocks fire a little later do not repeat it.
+        if (shardLeaseService.tryAcquire(LEASE, leaseTtl)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * @return the number of orders the rollups were rebuilt from
+     */
+    public long rebuild() {
+        return rebuildTimer.record(() -> {
+            OrderRollups.Keys before = orderRollups.existingKeys();
+            Optional<String> oldest = orderRepository.findOldestId();
+            if (oldest.isEmpty()) {
+                orderRollups.replace(new RollupTally(), before, writeBatchSize);
+                return 0L;
+            }
+            Instant from = new ObjectId(oldest.get()).getDate().toInstant();
+            Instant to = Instant.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+            long chunkSeconds = Math.max(1, (Duration.between(from, to).toSeconds() + chunks - 1) / chunks);
+
+            AtomicLong orders = new AtomicLong();
+            List<CompletableFuture<RollupTally>> tallies = new ArrayList<>();
+            for (Instant start = from; start.isBefore(to); start = start.plusSeconds(chunkSeconds)) {
+                Instant chunkStart = start;
+                Instant chunkEnd = start.plusSeconds(chunkSeconds).isBefore(to) ? start.plusSeconds(chunkSeconds) : to;
+                tallies.add(CompletableFuture.supplyAsync(() -> tally(chunkStart, chunkEnd, orders), executor));
+            }
+            RollupTally total = new RollupTally();
+            tallies.forEach(tally -> total.merge(tally.join()));
+
+            orderRollups.replace(total, before, writeBatchSize);
+            log.info("Rebuilt order rollups from {} orders: {} users, {} hours", orders.get(), total.users().size(),
+                    total.buckets().size());
+            return orders.get();
+        });
+    }
+
+    /**
+     * Reads the active tier before the archive and skips archived copies of orders it has already seen, so an order
+     * that an archive batch is moving meanwhile is counted exactly once, as it is in the active tier. The chunk is
+     * walked in id order, in slices of up to {@code slice-size} active orders that are each followed by the archive
+     * of their id range, so only one slice of active ids is held in memory at a time.
+     */
+    private RollupTally tally(Instant from, Instant to, AtomicLong orders) {
+        RollupTally tally = new RollupTally();
+        Set<String> active = new HashSet<>();
+        String sliceStart = OrderRepositoryCustom.firstIdAt(from);
+        String end = OrderRepositoryCustom.firstIdAt(to);
+        try (Stream<Order> chunk = orderRepository.streamForRollups(sliceStart, end, false)) {
+            for (Iterator<Order> it = chunk.iterator(); it.hasNext(); ) {
+                Order order = it.next();
+                if (active.size() == sliceSize) {
+                    tallyArchived(sliceStart, order.getId(), active, tally, orders);
+                    sliceStart = order.getId();
+                    active.clear();
+                }
+                active.add(order.getId());
+                tally.add(order, order.getStatus(), 1);
+            }
+        }
+        tallyArchived(sliceStart, end, active, tally, orders);
+        return tally;
+    }
+
+    private void tallyArchived(String fromId, String toId, Set<String> active, RollupTally tally,
+                               AtomicLong orders) {
+        try (Stream<Order> slice = orderRepository.streamForRollups(fromId, toId, true)) {
+            slice.filter(order -> !active.contains(order.getId()))
+                    .forEach(order -> {
+                        tally.add(order, order.getStatus(), 1);
+                        orders.incrementAndGet();
+                    });
+        }
+        orders.addAndGet(active.size());
+    }
+}
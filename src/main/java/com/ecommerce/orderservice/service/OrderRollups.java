@@ -0,0 +1,211 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.entity.StatusRollup;
+import com.ecommerce.orderservice.entity.UserOrderSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.Decimal128;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Materialized order counts and spend: per user and status in {@code user_order_summaries}, and per creation hour
+ * and status in {@code status_rollups}, read with one lookup instead of scanning {@code orders}.
+ * <p>
+ * {@link OrderService} records each order it creates and each transition it wins, after the transaction commits,
+ * as upserted {@code $inc} updates; a batch of transitions becomes one bulk write per collection. The updates are
+ * kept out of the order transaction because every transition of a user, or of an hour, would otherwise conflict on
+ * the same document. A failed update is logged and counted but not retried, since {@code $inc} is not idempotent;
+ * {@link OrderRollupRebuilder} recomputes the documents from {@code orders} and corrects any drift.
+ */
+@Service
+@Slf4j
+public class OrderRollups {
+    private static final Duration MAX_ROLLUP_RANGE = Duration.ofDays(31);
+
+    private final MongoTemplate mongoTemplate;
+    private final Counter updateFailures;
+
+    public OrderRollups(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.updateFailures = Counter.builder("order.rollups.update.failures")
+                .description("Rollup increments that failed; the next rebuild corrects them")
+                .register(meterRegistry);
+    }
+
+    public void recordCreated(Order order) {
+        RollupTally tally = new RollupTally();
+        tally.add(order, order.getStatus(), 1);
+        increment(tally);
+    }
+
+    /**
+     * Moves the order's contribution from {@code from} to the status it has now.
+     */
+    public void recordTransition(Order order, OrderStatus from) {
+        RollupTally tally = new RollupTally();
+        tally.addTransition(order, from);
+        increment(tally);
+    }
+
+    /**
+     * Records the transitions of a batch, each order moving from its status in {@code from}, in one bulk write per
+     * collection.
+     */
+    public void recordTransitions(Collection<Order> orders, Map<String, OrderStatus> from) {
+        RollupTally tally = new RollupTally();
+        for (Order order : orders) {
+            tally.addTransition(order, from.get(order.getId()));
+        }
+        increment(tally);
+    }
+
+    public UserOrderSummary findUserSummary(String userId) {
+        UserOrderSummary summary = mongoTemplate.findById(userId, UserOrderSummary.class);
+        return summary != null ? summary : RollupTally.summary(userId, Map.of());
+    }
+
+    /**
+     * Hourly rollups of the orders created in {@code [from, to)}, oldest first; hours without orders are left out.
+     */
+    public List<StatusRollup> findStatusRollups(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("A time range with from before to is required");
+        }
+        if (Duration.between(from, to).compareTo(MAX_ROLLUP_RANGE) > 0) {
+            throw new IllegalArgumentException("Time range cannot exceed " + MAX_ROLLUP_RANGE.toDays() + " days");
+        }
+        Query query = new Query(Criteria.where("_id").gte(RollupTally.bucket(from)).lt(to))
+                .with(Sort.by(Sort.Direction.ASC, "_id"));
+        return mongoTemplate.find(query, StatusRollup.class);
+    }
+
+    private void increment(RollupTally tally) {
+        try {
+            BulkOperations users = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserOrderSummary.class);
+            int userUpdates = 0;
+            for (Map.Entry<String, Map<OrderStatus, UserOrderSummary.StatusTotals>> user : tally.users().entrySet()) {
+                Update update = new Update();
+                user.getValue().forEach((status, delta) -> {
+                    // A transition that keeps the order's spend only moves its count.
+                    if (delta.getCount() != 0) {
+                        update.inc("byStatus." + status + ".count", delta.getCount());
+                    }
+                    if (delta.getSpend().signum() != 0) {
+                        update.inc("byStatus." + status + ".spend", new Decimal128(delta.getSpend()));
+                    }
+                });
+                if (!update.getUpdateObject().isEmpty()) {
+                    users.upsert(new Query(Criteria.where("_id").is(user.getKey())), update);
+                    userUpdates++;
+                }
+            }
+            if (userUpdates > 0) {
+                users.execute();
+            }
+
+            BulkOperations buckets = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StatusRollup.class);
+            int bucketUpdates = 0;
+            for (Map.Entry<LocalDateTime, Map<OrderStatus, Long>> bucket : tally.buckets().entrySet()) {
+                Update update = new Update();
+                bucket.getValue().forEach((status, delta) -> {
+                    if (delta != 0) {
+                        update.inc("counts." + status, delta);
+                    }
+                });
+                if (!update.getUpdateObject().isEmpty()) {
+                    buckets.upsert(new Query(Criteria.where("_id").is(bucket.getKey())), update);
+                    bucketUpdates++;
+                }
+            }
+            if (bucketUpdates > 0) {
+                buckets.execute();
+            }
+        } catch (RuntimeException e) {
+            updateFailures.increment();
+            log.warn("Failed to update order rollups, the next rebuild will correct them: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ids of the rollup documents as they are now. A rebuild takes them before it reads {@code orders}, so that
+     * {@link #replace} removes only documents that existed before it started; documents that increments create
+     * meanwhile are left alone.
+     */
+    Keys existingKeys() {
+        return new Keys(ids(UserOrderSummary.class, UserOrderSummary::getUserId),
+                ids(StatusRollup.class, StatusRollup::getBucket));
+    }
+
+    /**
+     * Overwrites the rollup documents present in {@code tally} with its totals, {@code batchSize} documents per bulk
+     * write, and removes the documents in {@code before} that the tally has no entry for: the users and hours whose
+     * orders are all gone.
+     */
+    void replace(RollupTally tally, Keys before, int batchSize) {
+        replaceAll(UserOrderSummary.class, tally.users().entrySet().stream()
+                .map(user -> RollupTally.summary(user.getKey(), user.getValue()))
+                .toList(), UserOrderSummary::getUserId, batchSize);
+        replaceAll(StatusRollup.class, tally.buckets().entrySet().stream()
+                .map(bucket -> RollupTally.rollup(bucket.getKey(), bucket.getValue()))
+                .toList(), StatusRollup::getBucket, batchSize);
+        removeAll(UserOrderSummary.class, before.users().stream()
+                .filter(userId -> !tally.users().containsKey(userId))
+                .toList(), batchSize);
+        removeAll(StatusRollup.class, before.buckets().stream()
+                .filter(bucket -> !tally.buckets().containsKey(bucket))
+                .toList(), batchSize);
+    }
+
+    private <T> void replaceAll(Class<T> type, List<T> documents, Function<T, Object> id, int batchSize) {
+        for (int start = 0; start < documents.size(); start += batchSize) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+            for (T document : documents.subList(start, Math.min(start + batchSize, documents.size()))) {
+                bulk.replaceOne(new Query(Criteria.where("_id").is(id.apply(document))), document,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            bulk.execute();
+        }
+    }
+
+    private void removeAll(Class<?> type, List<?> ids, int batchSize) {
+        for (int start = 0; start < ids.size(); start += batchSize) {
+            List<?> batch = ids.subList(start, Math.min(start + batchSize, ids.size()));
+            mongoTemplate.remove(new Query(Criteria.where("_id").in(batch)), type);
+        }
+        if (!ids.isEmpty()) {
+            log.info("Removed {} {} documents without orders", ids.size(), mongoTemplate.getCollectionName(type));
+        }
+    }
+
+    private <T, K> Set<K> ids(Class<T> type, Function<T, K> id) {
+        Query query = new Query();
+        query.fields().include("_id");
+        try (Stream<T> documents = mongoTemplate.stream(query, type)) {
+            return documents.map(id).collect(Collectors.toCollection(HashSet::new));
+        }
+    }
+
+    record Keys(Set<String> users, Set<LocalDateTime> buckets) {
+    }
+}
@@ -1,117 +1,186 @@
 package com.ecommerce.orderservice.service;
 
+import com.ecommerce.orderservice.client.PaymentClient;
+import com.ecommerce.orderservice.client.ProductCatalogCache;
+import com.ecommerce.orderservice.dto.OrderHistoryPage;
+import com.ecommerce.orderservice.dto.OrderSummary;
 import com.ecommerce.orderservice.entity.Order;
-import com.ecommerce.orderservice.entity.Order.OrderItem;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.event.LogisticsEvent;
+import com.ecommerce.orderservice.event.OrderEvent;
+import com.ecommerce.orderservice.event.PaymentEvent;
+import com.ecommerce.orderservice.repository.HistoryCursor;
 import com.ecommerce.orderservice.repository.OrderRepository;
+import com.ecommerce.orderservice.repository.StatusChange;
+import com.ecommerce.orderservice.service.OrderStageTimers.Stage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.*;
-import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.bson.types.ObjectId;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OrderService {
     private final OrderRepository orderRepository;
-    private final RestTemplate restTemplate;
-    private final TokenService tokenService;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
-
-    private static final String PRODUCT_SERVICE_URL = "http://localhost:8080/api/products/";
-    private static final String PAYMENT_SERVICE_URL = "http://localhost:8085/api/payments/initiate";
-    private static final String ORDER_EVENTS_TOPIC = "ORDER_EVENTS";
-
-    @Retryable(value = { RestClientException.class }, maxAttempts = 3, backoff = @Backoff(delay = 1000))
-    private ResponseEntity<Map> fetchProduct(Long productId) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", tokenService.getServiceToken());
-        return restTemplate.exchange(
-                PRODUCT_SERVICE_URL + productId,
-                HttpMethod.GET,
-                new HttpEntity<>(headers),
-                Map.class
-        );
+    private final ProductCatalogCache productCatalogCache;
+    private final PaymentClient paymentClient;
+    private final StockReservationService stockReservationService;
+    private final OrderExporter orderExporter;
+    private final OrderEventOutbox orderEventOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderStageTimers stageTimers;
+    private final OrderDetailsCache orderDetailsCache;
+    private final OrderRollups orderRollups;
+
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+    private void reserve(String orderId, int attempt, Map<Long, Integer> quantities) {
+        stageTimers.record(Stage.RESERVE_STOCK, () -> stockReservationService.reserve(orderId, attempt, quantities));
     }
 
-    @Retryable(value = { RestClientException.class }, maxAttempts = 3, backoff = @Backoff(delay = 1000))
-    private void updateProductStock(Long productId, int newStock) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", tokenService.getServiceToken());
-        Map<String, Object> stockUpdate = new HashMap<>();
-        stockUpdate.put("stock", newStock);
-        restTemplate.exchange(
-                PRODUCT_SERVICE_URL + productId,
-                HttpMethod.PUT,
-                new HttpEntity<>(stockUpdate, headers),
-                Void.class
-        );
+    private void release(String orderId, int attempt, Map<Long, Integer> quantities) {
+        stageTimers.record(Stage.RELEASE_STOCK, () -> stockReservationService.release(orderId, attempt, quantities));
     }
 
-    @Retryable(value = { RestClientException.class }, maxAttempts = 3, backoff = @Backoff(delay = 1000))
-    private void initiatePayment(String orderId, BigDecimal amount, String paymentMethod) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", tokenService.getServiceToken());
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+    public Order placeOrder(Order order, String userId) {
+        return stageTimers.record(Stage.PLACE_ORDER, () -> place(order, userId));
+    }
+
+    private Order place(Order order, String userId) {
+        validateNewOrder(order, userId);
+        Map<Long, Integer> quantities = StockReservationService.quantities(order.getItems());
+        order.setTotalAmount(price(quantities));
 
-        MultiValueMap<String, String> paymentRequest = new LinkedMultiValueMap<>();
-        paymentRequest.add("orderId", orderId);
-        paymentRequest.add("amount", amount.toString());
-        paymentRequest.add("paymentMethod", paymentMethod);
+        // The id is assigned up front because it keys the stock reservation of every line.
+        order.setId(new ObjectId().toHexString());
+        order.setReservationAttempt(0);
+        reserve(order.getId(), 0, quantities);
 
-        HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(paymentRequest, headers);
+        // Whatever status the client sent, a new order starts at the beginning of the lifecycle.
+        order.setStatus(initialStatus(order));
 
+        Order savedOrder;
         try {
-            ResponseEntity<Void> response = restTemplate.exchange(
-                    PAYMENT_SERVICE_URL,
-                    HttpMethod.POST,
-                    request,
-                    Void.class
-            );
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                log.error("Failed to initiate payment for orderId: {}. Response code: {}, Response: {}",
-                        orderId, response.getStatusCode(), response.getBody());
-                throw new IllegalStateException("Failed to initiate payment. Response code: " + response.getStatusCode());
-            }
-            log.info("Successfully initiated payment for orderId: {}", orderId);
-        } catch (HttpClientErrorException | HttpServerErrorException e) {
-            log.error("Failed to initiate payment for orderId: {}. Status: {}, Response: {}",
-                    orderId, e.getStatusCode(), e.getResponseBodyAsString());
-            throw new IllegalStateException("Failed to initiate payment. Status: " + e.getStatusCode() + ", Response: " + e.getResponseBodyAsString(), e);
-        } catch (RestClientException e) {
-            log.error("Failed to initiate payment for orderId: {}. Error: {}", orderId, e.getMessage());
-            throw new IllegalStateException("Failed to initiate payment due to network or service error", e);
+            savedOrder = stageTimers.record(Stage.SAVE, () -> orderRepository.save(order));
+        } catch (RuntimeException e) {
+            release(order.getId(), 0, quantities);
+            throw e;
         }
+        orderRollups.recordCreated(savedOrder);
+
+        initiatePayment(savedOrder, quantities);
+        return savedOrder;
     }
 
-    private void restoreStock(Order order) {
-        for (OrderItem item : order.getItems()) {
-            ResponseEntity<Map> response = fetchProduct(item.getProductId());
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                Map<String, Object> product = response.getBody();
-                Integer currentStock = (Integer) product.get("stock");
-                updateProductStock(item.getProductId(), currentStock + item.getQuantity());
-            }
+    /**
+     * First half of asynchronous placement: checks the request and stores the order as ACCEPTED without calling any
+     * other service. {@link #completePlacement} prices, reserves and starts payment later.
+     */
+    public Order acceptOrder(Order order, String userId) {
+        validateNewOrder(order, userId);
+        order.setId(new ObjectId().toHexString());
+        order.setTotalAmount(null);
+        order.setReason(null);
+        order.setReservationAttempt(0);
+        order.setStatus(OrderStatus.ACCEPTED);
+        Order savedOrder = stageTimers.record(Stage.SAVE, () -> orderRepository.save(order));
+        orderRollups.recordCreated(savedOrder);
+        return savedOrder;
+    }
+
+    /**
+     * Second half of asynchronous placement. Every run is a new reservation attempt, numbered on the order, and takes
+     * the stock under that attempt's keys, so a retry never reuses the keys of an attempt whose stock was already
+     * given back. Only the latest attempt can move the order out of ACCEPTED and start payment; a run that does not
+     * make the move returns what it took. The outcome is published on ORDER_EVENTS. An unknown product or missing
+     * stock fails the order; any other failure is thrown with the order still ACCEPTED and this attempt's stock
+     * returned, for the caller to retry or {@link #failPlacement}. A run that dies between reserving and moving the
+     * order keeps its attempt's stock taken.
+     */
+    public void completePlacement(Order order) {
+        if (order.getStatus() != OrderStatus.ACCEPTED) {
+            return;
+        }
+        Optional<Order> started = orderRepository.startReservationAttempt(order.getId());
+        if (started.isEmpty()) {
+            log.debug("Order {} is no longer ACCEPTED", order.getId());
+            return;
+        }
+        int attempt = started.get().getReservationAttempt();
+        Map<Long, Integer> quantities = StockReservationService.quantities(order.getItems());
+        BigDecimal totalAmount;
+        try {
+            totalAmount = price(quantities);
+            reserve(order.getId(), attempt, quantities);
+        } catch (IllegalArgumentException e) {
+            // Unknown product or insufficient stock; a failed reservation has already given back what it took.
+            log.info("Async placement of order {} failed: {}", order.getId(), e.getMessage());
+            transitionWithEvent(order.getId(), null, Set.of(OrderStatus.ACCEPTED), OrderStatus.FAILED, e.getMessage());
+            return;
+        }
+
+        OrderStatus target = initialStatus(order);
+        Optional<Order> placed;
+        try {
+            placed = transactionTemplate.execute(status -> {
+                Optional<Order> won = orderRepository.completeAcceptance(order.getId(), attempt, totalAmount, target);
+                won.ifPresent(accepted -> orderEventOutbox.append(accepted.getId(), target, accepted.getVersion()));
+                return won;
+            });
+        } catch (RuntimeException e) {
+            releaseAttempt(order.getId(), attempt, quantities);
+            throw e;
+        }
+        if (placed.isEmpty()) {
+            // Failed meanwhile, or left to a later attempt: either way the order does not hold this attempt's stock.
+            log.debug("Order {} was completed or failed by another run", order.getId());
+            releaseAttempt(order.getId(), attempt, quantities);
+            return;
+        }
+        orderDetailsCache.invalidate(order.getId());
+        orderRollups.recordTransition(placed.get(), OrderStatus.ACCEPTED);
+        try {
+            initiatePayment(placed.get(), quantities);
+        } catch (RuntimeException e) {
+            // The order has already been failed and its stock returned; there is nothing left to retry.
+            log.info("Payment initiation for order {} failed: {}", order.getId(), e.getMessage());
         }
     }
 
-    public Order placeOrder(Order order, String userId, String authToken) {
+    private void releaseAttempt(String orderId, int attempt, Map<Long, Integer> quantities) {
+        try {
+            release(orderId, attempt, quantities);
+        } catch (RuntimeException e) {
+            log.error("Failed to release stock of attempt {} of order {}: {}", attempt, orderId, e.getMessage());
+        }
+    }
+
+    /**
+     * Gives up on an order whose placement kept failing. Only an order still ACCEPTED is failed; one that a
+     * concurrent run placed meanwhile is left alone. No stock is returned here: every attempt has already returned
+     * what it took.
+     */
+    public void failPlacement(Order order, String reason) {
+        transitionWithEvent(order.getId(), null, Set.of(OrderStatus.ACCEPTED), OrderStatus.FAILED, reason)
+                .ifPresent(failed -> log.info("Placement of order {} failed for good: {}", order.getId(), reason));
+    }
+
+    private static void validateNewOrder(Order order, String userId) {
         if (userId == null || userId.isEmpty()) {
             throw new IllegalArgumentException("User ID cannot be empty");
         }
@@ -124,192 +193,258 @@ public class OrderService {
         if (order.getPaymentMethod() == null) {
             throw new IllegalArgumentException("Payment method is required");
         }
+    }
 
-        BigDecimal totalAmount = BigDecimal.ZERO;
-
-        for (OrderItem item : order.getItems()) {
-            ResponseEntity<Map> response = fetchProduct(item.getProductId());
-            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-                throw new IllegalArgumentException("Product with ID " + item.getProductId() + " not found");
-            }
+    private static OrderStatus initialStatus(Order order) {
+        return order.getPaymentMethod() == Order.PaymentMethod.COD ? OrderStatus.PLACED : OrderStatus.PENDING;
+    }
 
-            Map<String, Object> product = response.getBody();
-            Integer stock = (Integer) product.get("stock");
-            BigDecimal price = new BigDecimal(product.get("price").toString());
+    private BigDecimal price(Map<Long, Integer> quantities) {
+        return stageTimers.record(Stage.PRICE,
+                () -> OrderPricing.total(quantities, productCatalogCache.getProducts(quantities.keySet())));
+    }
 
-            if (stock < item.getQuantity()) {
-                throw new IllegalArgumentException("Insufficient stock for product ID " + item.getProductId() + ". Available: " + stock);
+    private void initiatePayment(Order savedOrder, Map<Long, Integer> quantities) {
+        try {
+            stageTimers.record(Stage.INITIATE_PAYMENT, () -> paymentClient.initiatePayment(savedOrder.getId(),
+                    savedOrder.getTotalAmount(), savedOrder.getPaymentMethod().toString()));
+        } catch (RuntimeException e) {
+            // A payment event may have failed the order meanwhile; only the winner releases the stock.
+            Optional<Order> failed = transitionWithEvent(savedOrder.getId(), null, OrderStatus.FAILED.sources(),
+                    OrderStatus.FAILED, "payment initiation failed");
+            if (failed.isPresent()) {
+                log.info("Releasing stock of order {} after payment initiation failed", savedOrder.getId());
+                release(savedOrder.getId(), savedOrder.getReservationAttempt(), quantities);
             }
+            throw e;
+        }
+    }
 
-            BigDecimal itemTotal = price.multiply(BigDecimal.valueOf(item.getQuantity()));
-            totalAmount = totalAmount.add(itemTotal);
+    public Order cancelOrder(String orderId, String userId) {
+        Order cancelled = transitionWithEvent(orderId, userId, OrderStatus.CANCELLED.sources(), OrderStatus.CANCELLED,
+                        null)
+                .orElseThrow(() -> transitionRejected(orderId, userId, "cancel"));
+        releaseStockOf(cancelled);
+        return cancelled;
+    }
 
-            updateProductStock(item.getProductId(), stock - item.getQuantity());
-        }
+    public Order returnOrder(String orderId, String userId) {
+        Order returned = transitionWithEvent(orderId, userId, OrderStatus.RETURNED.sources(), OrderStatus.RETURNED,
+                        null)
+                .orElseThrow(() -> transitionRejected(orderId, userId, "return"));
+        releaseStockOf(returned);
+        return returned;
+    }
 
-        if (totalAmount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Total amount must be positive");
-        }
-        order.setTotalAmount(totalAmount);
+    /**
+     * Makes the transition with a single compare-and-set on the order's status and records the ORDER_EVENTS entry
+     * in the same transaction; the rollups follow after the commit. Stock is returned by the caller, after the
+     * commit and only by the winner.
+     *
+     * @return the order as it is after the transition, or empty if this call did not make it
+     */
+    private Optional<Order> transitionWithEvent(String orderId, String userId, Collection<OrderStatus> from,
+                                                OrderStatus to, String reason) {
+        Optional<Order> before = transactionTemplate.execute(status -> {
+            Optional<Order> order = orderRepository.transition(orderId, userId, from, to, reason);
+            order.ifPresent(won -> orderEventOutbox.append(orderId, to, won.getVersion() + 1));
+            return order;
+        });
+        return before.map(order -> {
+            orderDetailsCache.invalidate(orderId);
+            OrderStatus previous = order.getStatus();
+            order.setStatus(to);
+            if (reason != null) {
+                order.setReason(reason);
+            }
+            order.setVersion(order.getVersion() + 1);
+            orderRollups.recordTransition(order, previous);
+            return order;
+        });
+    }
 
-        if (order.getPaymentMethod() == Order.PaymentMethod.COD) {
-            order.setStatus("PLACED");
+    private IllegalArgumentException transitionRejected(String orderId, String userId, String action) {
+        Optional<Order> order = orderRepository.findByIdAndUserId(orderId, userId).stream().findFirst()
+                .or(() -> orderRepository.findArchivedById(orderId)
+                        .filter(archived -> userId.equals(archived.getUserId())));
+        if (order.isEmpty()) {
+            return new IllegalArgumentException("Order with ID " + orderId + " not found or you don't have access to it");
         }
+        return new IllegalArgumentException("Cannot " + action + " order in status: " + order.get().getStatus());
+    }
 
-        Order savedOrder = orderRepository.save(order);
-
-        // Initiate payment
-        initiatePayment(savedOrder.getId(), totalAmount, order.getPaymentMethod().toString());
+    private void releaseStockOf(Order order) {
+        stageTimers.record(Stage.RELEASE_STOCK, () -> stockReservationService.releaseAfterTransition(order));
+    }
 
-        return savedOrder;
+    /**
+     * Applies one poll's worth of payment events: one read loads every referenced order and one bulk write stores
+     * the resulting status changes, recorded on ORDER_EVENTS in the same transaction. Events for the same order are
+     * applied in delivery order.
+     */
+    public void handlePaymentEvents(List<PaymentEvent> events) {
+        stageTimers.record(Stage.PAYMENT_EVENTS, () -> applyPaymentEvents(events));
     }
 
-    public Order cancelOrder(String orderId, String userId) {
-        List<Order> orders = orderRepository.findByIdAndUserId(orderId, userId);
-        if (orders.isEmpty()) {
-            throw new IllegalArgumentException("Order with ID " + orderId + " not found or you don't have access to it");
-        }
-        Order order = orders.get(0);
+    private void applyPaymentEvents(List<PaymentEvent> events) {
+        Map<String, Order> orders = loadOrders(events.stream().map(PaymentEvent::getOrderId).toList());
+        Map<String, OrderStatus> loadedStatuses = statuses(orders);
+        List<OrderEvent> transitions = new ArrayList<>();
 
-        if (!List.of("PENDING", "PLACED").contains(order.getStatus())) {
-            throw new IllegalArgumentException("Cannot cancel order in status: " + order.getStatus());
+        for (PaymentEvent event : events) {
+            Order order = orders.get(event.getOrderId());
+            if (order == null) {
+                log.warn("Order not found for orderId: {}", event.getOrderId());
+                continue;
+            }
+            OrderStatus target = event.getStatus().target();
+            if (target == null) {
+                continue;
+            }
+            if (order.getStatus() == OrderStatus.ACCEPTED) {
+                // Payment is only initiated once placement completes; failing it here would release stock it never took.
+                log.warn("Ignoring {} for order {} whose placement is still running", event.getStatus(), order.getId());
+                continue;
+            }
+            if (!order.getStatus().canTransitionTo(target)) {
+                log.info("Ignoring {} for order {} in status {}", event.getStatus(), order.getId(), order.getStatus());
+                continue;
+            }
+            log.info("Updating order {} to {}", order.getId(), target);
+            order.setStatus(target);
+            if (target == OrderStatus.FAILED) {
+                order.setReason(event.getReason() != null ? event.getReason() : "payment failed");
+            }
+            transitions.add(transition(order.getId(), target));
         }
 
-        order.setStatus("CANCELLED");
-        restoreStock(order);
-        Order updatedOrder = orderRepository.save(order);
-
-        kafkaTemplate.send(ORDER_EVENTS_TOPIC, new com.ecommerce.orderservice.event.OrderEvent() {{
-            setOrderId(orderId);
-            setStatus("CANCELLED");
-        }});
+        // Stock goes back only for orders this batch actually moved to FAILED.
+        for (String orderId : saveWithEvents(orders, loadedStatuses, transitions)) {
+            Order order = orders.get(orderId);
+            if (order.getStatus() == OrderStatus.FAILED) {
+                releaseStockOf(order);
+            }
+        }
+    }
 
-        return updatedOrder;
+    /**
+     * Applies one poll's worth of logistics events with one read and one bulk write, and records every transition
+     * that was stored in the outbox within the same transaction.
+     */
+    public void handleLogisticsEvents(List<LogisticsEvent> events) {
+        stageTimers.record(Stage.LOGISTICS_EVENTS, () -> applyLogisticsEvents(events));
     }
 
-    public Order returnOrder(String orderId, String userId) {
-        List<Order> orders = orderRepository.findByIdAndUserId(orderId, userId);
-        if (orders.isEmpty()) {
-            throw new IllegalArgumentException("Order with ID " + orderId + " not found or you don't have access to it");
-        }
-        Order order = orders.get(0);
+    private void applyLogisticsEvents(List<LogisticsEvent> events) {
+        Map<String, Order> orders = loadOrders(events.stream().map(LogisticsEvent::getOrderId).toList());
+        Map<String, OrderStatus> loadedStatuses = statuses(orders);
+        List<OrderEvent> transitions = new ArrayList<>();
 
-        if (!"DELIVERED".equals(order.getStatus())) {
-            throw new IllegalArgumentException("Cannot return order in status: " + order.getStatus());
+        for (LogisticsEvent event : events) {
+            Order order = orders.get(event.getOrderId());
+            if (order == null) {
+                log.warn("Order not found for orderId: {}", event.getOrderId());
+                continue;
+            }
+            OrderStatus target = event.getStatus().target();
+            if (!order.getStatus().canTransitionTo(target)) {
+                log.warn("Invalid status transition for order {} from {} to {}", order.getId(), order.getStatus(), target);
+                continue;
+            }
+            log.info("Updating order {} to {}", order.getId(), target);
+            order.setStatus(target);
+            transitions.add(transition(order.getId(), target));
         }
 
-        order.setStatus("RETURNED");
-        restoreStock(order);
-        Order updatedOrder = orderRepository.save(order);
+        saveWithEvents(orders, loadedStatuses, transitions);
+    }
 
-        kafkaTemplate.send(ORDER_EVENTS_TOPIC, new com.ecommerce.orderservice.event.OrderEvent() {{
-            setOrderId(orderId);
-            setStatus("RETURNED");
-        }});
+    private static OrderEvent transition(String orderId, OrderStatus status) {
+        OrderEvent transition = new OrderEvent();
+        transition.setOrderId(orderId);
+        transition.setStatus(status);
+        return transition;
+    }
 
-        return updatedOrder;
+    /**
+     * Stores the status changes and, in the same transaction, the transitions of the orders whose change was
+     * stored; the rollups follow after the commit. Returns the ids of those orders.
+     */
+    private Set<String> saveWithEvents(Map<String, Order> orders, Map<String, OrderStatus> loadedStatuses,
+                                       List<OrderEvent> transitions) {
+        Set<String> saved = transactionTemplate.execute(status -> {
+            Set<String> stored = saveStatusChanges(orders, loadedStatuses);
+            // A stored change found the order in its loaded status, so at its loaded version: statuses never repeat.
+            orderEventOutbox.appendAll(transitions.stream()
+                    .filter(transition -> stored.contains(transition.getOrderId()))
+                    .toList(), orderId -> orders.get(orderId).getVersion() + 1);
+            return stored;
+        });
+        orderDetailsCache.invalidateAll(saved);
+        orderRollups.recordTransitions(saved.stream().map(orders::get).toList(), loadedStatuses);
+        return saved;
     }
 
-    @KafkaListener(topics = "PAYMENT_EVENTS", groupId = "order-service-group", containerFactory = "paymentKafkaListenerContainerFactory")
-    public void handlePaymentEvent(com.ecommerce.orderservice.event.PaymentEvent event) {
-        log.info("Processing payment event for orderId: {}", event.getOrderId());
-        List<Order> orders = orderRepository.findAllById(event.getOrderId());
-        if (orders.isEmpty()) {
-            log.warn("Order not found for orderId: {}", event.getOrderId());
-            return;
-        }
-        Order order = orders.get(0);
-        log.info("Current order status: {}", order.getStatus());
-
-        if ("PAYMENT_RECEIVED".equals(event.getStatus())) {
-            if ("PENDING".equals(order.getStatus())) {
-                log.info("Updating order {} to PLACED", order.getId());
-                order.setStatus("PLACED");
-                orderRepository.save(order);
-            } else {
-                log.info("Order {} is not in PENDING status, current status: {}", order.getId(), order.getStatus());
-            }
-        } else if ("PAYMENT_FAILED".equals(event.getStatus())) {
-            if (List.of("PENDING", "PLACED").contains(order.getStatus())) {
-                log.info("Updating order {} to FAILED with reason: {}", order.getId(), event.getReason());
-                order.setStatus("FAILED");
-                order.setReason(event.getReason() != null ? event.getReason() : "payment failed");
-                restoreStock(order);
-                orderRepository.save(order);
-            } else {
-                log.info("Order {} is not in PENDING or PLACED status, current status: {}", order.getId(), order.getStatus());
-            }
-        }
+    private Map<String, Order> loadOrders(Collection<String> orderIds) {
+        Map<String, Order> orders = new HashMap<>();
+        orderRepository.findAllById(new HashSet<>(orderIds)).forEach(order -> orders.put(order.getId(), order));
+        return orders;
     }
 
-    @KafkaListener(topics = "LOGISTICS_EVENTS", groupId = "order-service-group")
-    public void handleLogisticsEvent(com.ecommerce.orderservice.event.LogisticsEvent event) {
-        log.info("Processing logistics event for orderId: {}", event.getOrderId());
-        List<Order> orders = orderRepository.findAllById(event.getOrderId());
-        if (orders.isEmpty()) {
-            log.warn("Order not found for orderId: {}", event.getOrderId());
-            return;
-        }
-        Order order = orders.get(0);
-        log.info("Current order status: {}", order.getStatus());
-
-        String newStatus = event.getStatus();
-        String currentStatus = order.getStatus();
-
-        boolean isValidTransition = false;
-        if ("SHIPPED".equals(newStatus) && "PLACED".equals(currentStatus)) {
-            isValidTransition = true;
-        } else if ("OUT_FOR_DELIVERY".equals(newStatus) && "SHIPPED".equals(currentStatus)) {
-            isValidTransition = true;
-        } else if ("DELIVERED".equals(newStatus) && "OUT_FOR_DELIVERY".equals(currentStatus)) {
-            isValidTransition = true;
-        }
+    private static Map<String, OrderStatus> statuses(Map<String, Order> orders) {
+        Map<String, OrderStatus> statuses = new HashMap<>();
+        orders.forEach((orderId, order) -> statuses.put(orderId, order.getStatus()));
+        return statuses;
+    }
 
-        if (!isValidTransition) {
-            log.warn("Invalid status transition for order {} from {} to {}", order.getId(), currentStatus, newStatus);
-            return;
+    /**
+     * Writes the orders whose status changed in memory, each guarded by the status it was loaded with.
+     */
+    private Set<String> saveStatusChanges(Map<String, Order> orders, Map<String, OrderStatus> loadedStatuses) {
+        List<StatusChange> changes = new ArrayList<>();
+        orders.forEach((orderId, order) -> {
+            OrderStatus loadedStatus = loadedStatuses.get(orderId);
+            if (loadedStatus != order.getStatus()) {
+                changes.add(new StatusChange(orderId, loadedStatus, order.getStatus(), order.getReason()));
+            }
+        });
+        Set<String> saved = orderRepository.applyStatusChanges(changes);
+        if (saved.size() < changes.size()) {
+            log.info("{} of {} status changes lost to concurrent updates", changes.size() - saved.size(), changes.size());
         }
-
-        log.info("Updating order {} to {}", order.getId(), newStatus);
-        order.setStatus(newStatus);
-        kafkaTemplate.send(ORDER_EVENTS_TOPIC, new com.ecommerce.orderservice.event.OrderEvent() {{
-            setOrderId(order.getId());
-            setStatus(newStatus);
-        }});
-        orderRepository.save(order);
+        return saved;
     }
 
-    @Scheduled(fixedRate = 60000)
-    public void checkPaymentLinkExpiry() {
-        List<Order> pendingOrders = orderRepository.findByStatus("PENDING");
-        LocalDateTime now = LocalDateTime.now();
-        for (Order order : pendingOrders) {
-            if (order.getPaymentMethod() == Order.PaymentMethod.ONLINE &&
-                    order.getCreatedAt().plusMinutes(5).isBefore(now)) {
-                log.info("Order {} payment link expired, marking as FAILED", order.getId());
-                order.setStatus("FAILED");
-                order.setReason("payment link expired");
-                restoreStock(order);
-                orderRepository.save(order);
-            }
+    public OrderHistoryPage getOrderHistory(String userId, String cursor, int limit, boolean includeItems) {
+        if (userId == null || userId.isEmpty()) {
+            throw new IllegalArgumentException("User ID cannot be empty");
+        }
+        if (limit < 1 || limit > MAX_HISTORY_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_HISTORY_PAGE_SIZE);
         }
+        HistoryCursor after = cursor == null || cursor.isEmpty() ? null : HistoryCursor.decode(cursor);
+        List<OrderSummary> orders = orderRepository.findHistoryPage(userId, after, limit, includeItems);
+        String nextCursor = null;
+        if (orders.size() == limit) {
+            OrderSummary last = orders.get(orders.size() - 1);
+            nextCursor = new HistoryCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new OrderHistoryPage(orders, nextCursor);
     }
 
-    public List<Order> getOrderHistory(String userId) {
+    public long exportOrders(String userId, OrderStatus status, LocalDateTime from, LocalDateTime to, OutputStream out)
+            throws IOException {
         if (userId == null || userId.isEmpty()) {
             throw new IllegalArgumentException("User ID cannot be empty");
         }
-        return orderRepository.findByUserId(userId);
+        return orderExporter.export(orderRepository.streamForExport(userId, status, from, to), out);
     }
 
     public Order getOrderDetails(String orderId, String userId) {
         if (userId == null || userId.isEmpty()) {
             throw new IllegalArgumentException("User ID cannot be empty");
         }
-        List<Order> orders = orderRepository.findByIdAndUserId(orderId, userId);
-        if (orders.isEmpty()) {
-            throw new IllegalArgumentException("Order with ID " + orderId + " not found or you don't have access to it");
-        }
-        return orders.get(0);
+        return orderDetailsCache.find(orderId, userId).orElseThrow(() ->
+                new IllegalArgumentException("Order with ID " + orderId + " not found or you don't have access to it"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.ecommerce.orderservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latency of each stage of order placement, stock release, event handling and payment expiry as
+ * {@code order.stage}, tagged with the stage and its outcome ({@code success} or {@code failure}). Every timer is
+ * registered up front, so timing a stage costs two clock reads and a histogram update and no registry lookup.
+ */
+@Component
+public class OrderStageTimers {
+
+    public enum Stage {
+        PLACE_ORDER,
+        PRICE,          // Product lookup, including the service token, and the total
+        RESERVE_STOCK,
+        SAVE,
+        INITIATE_PAYMENT,
+        RELEASE_STOCK,
+        PAYMENT_EVENTS,
+        LOGISTICS_EVENTS,
+        PAYMENT_EXPIRY
+    }
+
+    private final Timer[] succeeded;
+    private final Timer[] failed;
+
+    public OrderStageTimers(MeterRegistry meterRegistry) {
+        Stage[] stages = Stage.values();
+        succeeded = new Timer[stages.length];
+        failed = new Timer[stages.length];
+        for (Stage stage : stages) {
+            succeeded[stage.ordinal()] = timer(meterRegistry, stage, "success");
+            failed[stage.ordinal()] = timer(meterRegistry, stage, "failure");
+        }
+    }
+
+    public <T> T record(Stage stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            T result = work.get();
+            succeeded[stage.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException e) {
+            failed[stage.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    public void record(Stage stage, Runnable work) {
+        record(stage, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, Stage stage, String outcome) {
+        return Timer.builder("order.stage")
+                .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+}
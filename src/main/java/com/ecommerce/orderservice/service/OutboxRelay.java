@@ -0,0 +1,164 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.OutboxEvent;
+import com.ecommerce.orderservice.event.OrderEvent;
+import com.ecommerce.orderservice.repository.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the outbox to Kafka, oldest first, keyed by order id. Outbox ids are generated by the replica that wrote
+ * the event, so they only roughly follow commit order: the next change of an order, made on a replica whose clock
+ * is behind, can get the smaller id. Each batch therefore publishes the events of its orders by order version,
+ * pulling in any earlier events of those orders that sorted after it.
+ * <p>
+ * One replica relays at a time, under a lease that it renews before every batch; a batch waits at most
+ * {@code send-timeout} for its acks, so a lease TTL above that keeps the lease held for as long as the relay runs. A
+ * relay that finds its lease taken stops.
+ * <p>
+ * A batch is handed to the producer in one go so that it can group records per partition ({@code linger.ms},
+ * {@code batch.size}); events are deleted only after Kafka acknowledged them. A crash between the ack and the delete
+ * republishes those events, so delivery is at least once: every record carries the outbox id in an
+ * {@value #EVENT_ID_HEADER} header that stays the same across republishing.
+ */
+@Service
+@Slf4j
+public class OutboxRelay {
+    public static final String EVENT_ID_HEADER = "eventId";
+    private static final String LEASE = "outbox-relay";
+
+    private final OutboxRepository outboxRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ShardLeaseService shardLeaseService;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Duration leaseTtl;
+    private final Duration sendTimeout;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final DistributionSummary batchSizes;
+    private final Counter published;
+    private final Counter publishFailures;
+
+    public OutboxRelay(
+            OutboxRepository outboxRepository,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            ShardLeaseService shardLeaseService,
+            MeterRegistry meterRegistry,
+            @Value("${order.outbox.batch-size:500}") int batchSize,
+            @Value("${order.outbox.max-batches:20}") int maxBatches,
+            @Value("${order.outbox.lease-ttl:30s}") Duration leaseTtl,
+            @Value("${order.outbox.send-timeout:10s}") Duration sendTimeout
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.shardLeaseService = shardLeaseService;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.leaseTtl = leaseTtl;
+        this.sendTimeout = sendTimeout;
+        TimeGauge.builder("order.outbox.relay.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Age of the oldest unpublished outbox event when the relay last looked")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("order.outbox.relay.batch.size").register(meterRegistry);
+        this.published = Counter.builder("order.outbox.published").register(meterRegistry);
+        this.publishFailures = Counter.builder("order.outbox.publish.failures").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.interval-ms:200}")
+    public void relay() {
+        for (int batch = 0; batch < maxBatches; batch++) {
+            if (!shardLeaseService.tryAcquire(LEASE, leaseTtl)) {
+                return;
+            }
+            List<OutboxEvent> oldest = outboxRepository.findByOrderByIdAsc(PageRequest.of(0, batchSize));
+            lagMillis.set(oldest.isEmpty() ? 0
+                    : Math.max(0, Duration.between(oldest.get(0).getCreatedAt(), LocalDateTime.now()).toMillis()));
+            if (oldest.isEmpty()) {
+                return;
+            }
+            List<OutboxEvent> events = inVersionOrder(oldest);
+            int acknowledged = publish(events);
+            if (acknowledged > 0) {
+                outboxRepository.deleteAllById(events.subList(0, acknowledged).stream().map(OutboxEvent::getId).toList());
+            }
+            if (acknowledged < events.size() || oldest.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The batch's events together with the earlier events of the same orders that sorted after it, each order's by
+     * version, the orders in the order they first appear in the batch.
+     */
+    private List<OutboxEvent> inVersionOrder(List<OutboxEvent> oldest) {
+        Map<String, Long> latest = new LinkedHashMap<>();
+        oldest.forEach(event -> latest.merge(event.getOrderId(), event.getVersion(), Math::max));
+        Map<String, List<OutboxEvent>> byOrder = new LinkedHashMap<>();
+        latest.keySet().forEach(orderId -> byOrder.put(orderId, new ArrayList<>()));
+        for (OutboxEvent event : outboxRepository.findByOrderIdInOrderByVersionAscIdAsc(latest.keySet())) {
+            if (event.getVersion() <= latest.get(event.getOrderId())) {
+                byOrder.get(event.getOrderId()).add(event);
+            }
+        }
+        return byOrder.values().stream().flatMap(List::stream).toList();
+    }
+
+    /**
+     * @return how many events from the start of the batch Kafka acknowledged. Everything after the first failure
+     * stays in the outbox, so an order's events are not published out of order. The whole batch shares one
+     * {@code send-timeout}.
+     */
+    private int publish(List<OutboxEvent> events) {
+        List<CompletableFuture<SendResult<String, Object>>> sends = events.stream().map(this::send).toList();
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        int acknowledged = 0;
+        try {
+            for (CompletableFuture<SendResult<String, Object>> send : sends) {
+                send.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                acknowledged++;
+            }
+        } catch (ExecutionException | TimeoutException e) {
+            publishFailures.increment();
+            log.warn("Outbox relay stopped after {} of {} events: {}", acknowledged, events.size(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        batchSizes.record(acknowledged);
+        published.increment(acknowledged);
+        return acknowledged;
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(OutboxEvent event) {
+        OrderEvent payload = new OrderEvent();
+        payload.setOrderId(event.getOrderId());
+        payload.setStatus(event.getStatus());
+        ProducerRecord<String, Object> record = new ProducerRecord<>(event.getTopic(), event.getOrderId(), payload);
+        record.headers().add(EVENT_ID_HEADER, event.getId().getBytes(StandardCharsets.UTF_8));
+        return kafkaTemplate.send(record);
+    }
+}
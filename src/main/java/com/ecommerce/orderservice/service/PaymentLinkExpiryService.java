@@ -0,0 +1,183 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fails ONLINE orders whose payment link expired and returns their stock.
+ * <p>
+ * Only expired orders are read, through the {@code (status, paymentMethod, createdAt)} index, in bounded batches.
+ * The work is split into shards by creation time. Each run, a replica starts at a random shard and sweeps at most
+ * {@code max-shards-per-run} shards whose lease it wins, so replicas share the backlog instead of the first one to
+ * fire taking every shard; set it to the shard count divided by the replica count, rounded up. The lease of a shard
+ * is renewed before every batch and the sweep of the shard stops once it is lost. Each order is failed with a compare-and-set on PENDING, and only
+ * the winner of that transition restores stock, so an order is expired exactly once even if leases overlap.
+ * The transition is recorded on ORDER_EVENTS in the same transaction, and in the order rollups after it commits.
+ */
+@Service
+@Slf4j
+public class PaymentLinkExpiryService {
+    private static final String EXPIRED_REASON = "payment link expired";
+
+    private final OrderRepository orderRepository;
+    private final StockReservationService stockReservationService;
+    private final OrderEventOutbox orderEventOutbox;
+    private final OrderDetailsCache orderDetailsCache;
+    private final OrderRollups orderRollups;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardLeaseService shardLeaseService;
+    private final TaskExecutor executor;
+    private final Duration linkTtl;
+    private final int shards;
+    private final int maxShardsPerRun;
+    private final int batchSize;
+    private final int maxBatchesPerShard;
+    private final Duration leaseTtl;
+
+    private final Counter expired;
+    private final Counter lostRaces;
+    private final Counter restoreFailures;
+    private final Counter expiryFailures;
+    private final OrderStageTimers stageTimers;
+
+    public PaymentLinkExpiryService(
+            OrderRepository orderRepository,
+            StockReservationService stockReservationService,
+            OrderEventOutbox orderEventOutbox,
+            OrderDetailsCache orderDetailsCache,
+            OrderRollups orderRollups,
+            TransactionTemplate transactionTemplate,
+            ShardLeaseService shardLeaseService,
+            @Qualifier("paymentExpiryExecutor") TaskExecutor executor,
+            MeterRegistry meterRegistry,
+            OrderStageTimers stageTimers,
+            @Value("${order.expiry.link-ttl:5m}") Duration linkTtl,
+            @Value("${order.expiry.shards:4}") int shards,
+            @Value("${order.expiry.max-shards-per-run:2}") int maxShardsPerRun,
+            @Value("${order.expiry.batch-size:200}") int batchSize,
+            @Value("${order.expiry.max-batches-per-shard:10}") int maxBatchesPerShard,
+            @Value("${order.expiry.lease-ttl:50s}") Duration leaseTtl
+    ) {
+        this.orderRepository = orderRepository;
+        this.stockReservationService = stockReservationService;
+        this.orderEventOutbox = orderEventOutbox;
+        this.orderDetailsCache = orderDetailsCache;
+        this.orderRollups = orderRollups;
+        this.transactionTemplate = transactionTemplate;
+        this.shardLeaseService = shardLeaseService;
+        this.executor = executor;
+        this.linkTtl = linkTtl;
+        this.shards = shards;
+        this.maxShardsPerRun = maxShardsPerRun;
+        this.batchSize = batchSize;
+        this.maxBatchesPerShard = maxBatchesPerShard;
+        this.leaseTtl = leaseTtl;
+        this.expired = Counter.builder("order.expiry.expired").register(meterRegistry);
+        this.lostRaces = Counter.builder("order.expiry.lost.races")
+                .description("Expired orders that changed status before they could be failed")
+                .register(meterRegistry);
+        this.restoreFailures = Counter.builder("order.expiry.restore.failures").register(meterRegistry);
+        this.expiryFailures = Counter.builder("order.expiry.failures")
+                .description("Expired orders that could not be failed and stay for the next run")
+                .register(meterRegistry);
+        this.stageTimers = stageTimers;
+    }
+
+    @Scheduled(fixedDelayString = "${order.expiry.interval-ms:60000}")
+    public void checkPaymentLinkExpiry() {
+        stageTimers.record(OrderStageTimers.Stage.PAYMENT_EXPIRY, () -> {
+            int start = ThreadLocalRandom.current().nextInt(shards);
+            int swept = 0;
+            for (int i = 0; i < shards && swept < maxShardsPerRun; i++) {
+                int shard = (start + i) % shards;
+                try {
+                    if (shardLeaseService.tryAcquire(lease(shard), leaseTtl)) {
+                        swept++;
+                        sweepShard(shard);
+                    }
+                } catch (RuntimeException e) {
+                    // The other shards still get their sweep; this one is retried on the next run.
+                    log.error("Payment expiry sweep of shard {} failed: {}", shard, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void sweepShard(int shard) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(linkTtl);
+        for (int batch = 0; batch < maxBatchesPerShard; batch++) {
+            // Acquired just before the first batch; renewed before each later one.
+            if (batch > 0 && !shardLeaseService.tryAcquire(lease(shard), leaseTtl)) {
+                log.warn("Lost the lease of payment expiry shard {} after {} batches", shard, batch);
+                return;
+            }
+            List<Order> orders = orderRepository.findExpiredPaymentLinks(cutoff, shard, shards, batchSize);
+            if (orders.isEmpty()) {
+                return;
+            }
+            List<CompletableFuture<Void>> expiries = orders.stream()
+                    .map(order -> CompletableFuture.runAsync(() -> expire(order), executor))
+                    .toList();
+            int failed = 0;
+            for (int i = 0; i < expiries.size(); i++) {
+                try {
+                    expiries.get(i).join();
+                } catch (CompletionException e) {
+                    failed++;
+                    expiryFailures.increment();
+                    log.error("Failed to expire order {}: {}", orders.get(i).getId(), e.getCause().getMessage());
+                }
+            }
+            // Failed orders are still PENDING and would head the next batch again; leave them to the next run.
+            if (failed > 0 || orders.size() < batchSize) {
+                return;
+            }
+        }
+        log.info("Payment expiry shard {} still has a backlog after {} batches", shard, maxBatchesPerShard);
+    }
+
+    private static String lease(int shard) {
+        return "payment-expiry-" + shard;
+    }
+
+    private void expire(Order order) {
+        boolean won = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (!orderRepository.expirePaymentLink(order.getId(), EXPIRED_REASON)) {
+                return false;
+            }
+            // Still PENDING, so still at the version it was read with.
+            orderEventOutbox.append(order.getId(), OrderStatus.FAILED, order.getVersion() + 1);
+            return true;
+        }));
+        if (!won) {
+            lostRaces.increment();
+            return;
+        }
+        orderDetailsCache.invalidate(order.getId());
+        order.setStatus(OrderStatus.FAILED);
+        order.setReason(EXPIRED_REASON);
+        orderRollups.recordTransition(order, OrderStatus.PENDING);
+        log.info("Order {} payment link expired, marked as FAILED", order.getId());
+        expired.increment();
+        if (!stockReservationService.releaseAfterTransition(order)) {
+            restoreFailures.increment();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.entity.StatusRollup;
+import com.ecommerce.orderservice.entity.UserOrderSummary;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts and spend per user and status, and counts per creation hour and status, summed over orders. Incremental
+ * updates tally signed deltas and {@code $inc} them; the rebuild tallies whole orders and replaces the documents,
+ * so both sides share one definition of what an order contributes. Not thread-safe.
+ */
+class RollupTally {
+    private final Map<String, Map<OrderStatus, UserOrderSummary.StatusTotals>> users = new HashMap<>();
+    private final Map<LocalDateTime, Map<OrderStatus, Long>> buckets = new HashMap<>();
+
+    /**
+     * Adds ({@code sign = 1}) or removes ({@code sign = -1}) the order as it is in {@code status}.
+     */
+    void add(Order order, OrderStatus status, int sign) {
+        UserOrderSummary.StatusTotals totals = users
+                .computeIfAbsent(order.getUserId(), userId -> new EnumMap<>(OrderStatus.class))
+                .computeIfAbsent(status, s -> new UserOrderSummary.StatusTotals());
+        totals.setCount(totals.getCount() + sign);
+        BigDecimal spend = spend(order, status);
+        totals.setSpend(sign > 0 ? totals.getSpend().add(spend) : totals.getSpend().subtract(spend));
+        buckets.computeIfAbsent(bucket(order.getCreatedAt()), hour -> new EnumMap<>(OrderStatus.class))
+                .merge(status, (long) sign, Long::sum);
+    }
+
+    void addTransition(Order order, OrderStatus from) {
+        add(order, from, -1);
+        add(order, order.getStatus(), 1);
+    }
+
+    void merge(RollupTally other) {
+        other.users.forEach((userId, statuses) -> statuses.forEach((status, totals) -> {
+            UserOrderSummary.StatusTotals mine = users
+                    .computeIfAbsent(userId, id -> new EnumMap<>(OrderStatus.class))
+                    .computeIfAbsent(status, s -> new UserOrderSummary.StatusTotals());
+            mine.setCount(mine.getCount() + totals.getCount());
+            mine.setSpend(mine.getSpend().add(totals.getSpend()));
+        }));
+        other.buckets.forEach((hour, counts) -> counts.forEach((status, count) ->
+                buckets.computeIfAbsent(hour, h -> new EnumMap<>(OrderStatus.class)).merge(status, count, Long::sum)));
+    }
+
+    Map<String, Map<OrderStatus, UserOrderSummary.StatusTotals>> users() {
+        return users;
+    }
+
+    Map<LocalDateTime, Map<OrderStatus, Long>> buckets() {
+        return buckets;
+    }
+
+    boolean isEmpty() {
+        return users.isEmpty() && buckets.isEmpty();
+    }
+
+    /**
+     * An ACCEPTED order is not priced yet; once placement prices it, its total counts in every later status.
+     */
+    static BigDecimal spend(Order order, OrderStatus status) {
+        if (status == OrderStatus.ACCEPTED || order.getTotalAmount() == null) {
+            return BigDecimal.ZERO;
+        }
+        return order.getTotalAmount();
+    }
+
+    static LocalDateTime bucket(LocalDateTime createdAt) {
+        return createdAt.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    static StatusRollup rollup(LocalDateTime hour, Map<OrderStatus, Long> counts) {
+        StatusRollup rollup = new StatusRollup();
+        rollup.setBucket(hour);
+        rollup.getCounts().putAll(counts);
+        return rollup;
+    }
+
+    static UserOrderSummary summary(String userId, Map<OrderStatus, UserOrderSummary.StatusTotals> byStatus) {
+        UserOrderSummary summary = new UserOrderSummary();
+        summary.setUserId(userId);
+        summary.getByStatus().putAll(byStatus);
+        return summary;
+    }
+}
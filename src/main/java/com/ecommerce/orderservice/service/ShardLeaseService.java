@@ -0,0 +1,61 @@
+package com.ecommerce.orderservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Time-bounded leases in Mongo that let replicas split background work: a lease is held by at most one
+ * replica until it expires, and the holder can extend it.
+ */
+@Service
+@Slf4j
+public class ShardLeaseService {
+    private static final String COLLECTION = "sweeper_leases";
+
+    private final MongoTemplate mongoTemplate;
+    private final Clock clock;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Autowired
+    public ShardLeaseService(MongoTemplate mongoTemplate) {
+        this(mongoTemplate, Clock.systemUTC());
+    }
+
+    ShardLeaseService(MongoTemplate mongoTemplate, Clock clock) {
+        this.mongoTemplate = mongoTemplate;
+        this.clock = clock;
+    }
+
+    /**
+     * Acquires the lease for {@code ttl}, or extends it from now if this replica already holds it.
+     *
+     * @return whether this replica holds the lease
+     */
+    public boolean tryAcquire(String lease, Duration ttl) {
+        Instant now = clock.instant();
+        Query query = new Query(Criteria.where("_id").is(lease).orOperator(
+                Criteria.where("lockedUntil").lt(now),
+                Criteria.where("owner").is(instanceId)
+        ));
+        Update update = new Update().set("owner", instanceId).set("lockedUntil", now.plus(ttl));
+        try {
+            // Inserts the lease if it has never existed; fails on the _id when another replica holds it.
+            mongoTemplate.upsert(query, update, COLLECTION);
+            return true;
+        } catch (DuplicateKeyException e) {
+            log.debug("Lease {} is held by another replica", lease);
+            return false;
+        }
+    }
+}
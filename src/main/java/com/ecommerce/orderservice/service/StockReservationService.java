@@ -0,0 +1,153 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.client.ProductGateway;
+import com.ecommerce.orderservice.client.StockAdjustment;
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.Order.OrderItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Takes and returns stock for an order as relative deltas. Every line carries an idempotency key derived
+ * from the order id and product id, so retries and redelivered events never move stock twice, and two
+ * orders for the same product can no longer overwrite each other's stock level.
+ * <p>
+ * Asynchronous placement may reserve an order's stock more than once: an attempt that fails gives its stock back,
+ * and the next attempt has to take it again. The keys therefore also carry the reservation attempt, so a new
+ * attempt is never mistaken for a repeat of one whose stock has already been released. Attempt 0 uses the
+ * original key format.
+ * <p>
+ * Lines are adjusted one request each, issued concurrently on {@code productServiceExecutor}, even when the
+ * product service offers batch endpoints: its batch adjustment answers a shortage with a bare 409 that does not
+ * name the product, so a cart could not fail with the same {@link
+ * com.ecommerce.orderservice.exception.InsufficientStockException} as a single line does.
+ */
+@Service
+@Slf4j
+public class StockReservationService {
+    private final ProductGateway productGateway;
+    private final TaskExecutor executor;
+
+    public StockReservationService(ProductGateway productGateway,
+                                   @Qualifier("productServiceExecutor") TaskExecutor executor) {
+        this.productGateway = productGateway;
+        this.executor = executor;
+    }
+
+    public static Map<Long, Integer> quantities(List<OrderItem> items) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (OrderItem item : items) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    public void reserve(String orderId, Map<Long, Integer> quantities) {
+        reserve(orderId, 0, quantities);
+    }
+
+    /**
+     * Takes stock for every line or for none. If any line fails, the lines already taken are released
+     * concurrently before the failure is rethrown.
+     */
+    public void reserve(String orderId, int attempt, Map<Long, Integer> quantities) {
+        List<StockAdjustment> adjustments = adjustments(orderId, attempt, quantities, -1, "reserve");
+        List<CompletableFuture<Void>> calls = submit(adjustments);
+        List<StockAdjustment> reserved = new ArrayList<>();
+        RuntimeException failure = null;
+        for (int i = 0; i < calls.size(); i++) {
+            try {
+                calls.get(i).join();
+                reserved.add(adjustments.get(i));
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = unwrap(e);
+                }
+            }
+        }
+        if (failure != null) {
+            log.info("Stock reservation for order {} failed, releasing {} reserved line(s)", orderId, reserved.size());
+            compensate(orderId, attempt, reserved);
+            throw failure;
+        }
+    }
+
+    public void release(String orderId, Map<Long, Integer> quantities) {
+        release(orderId, 0, quantities);
+    }
+
+    /**
+     * Returns the stock of every line taken by the given reservation attempt. Safe to call more than once.
+     */
+    public void release(String orderId, int attempt, Map<Long, Integer> quantities) {
+        List<StockAdjustment> adjustments = adjustments(orderId, attempt, quantities, 1, "release");
+        RuntimeException failure = null;
+        for (CompletableFuture<Void> call : submit(adjustments)) {
+            try {
+                call.join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = unwrap(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Returns the stock of an order that has already moved to a status that does not hold stock. The move stands
+     * whatever happens here, so a failure is logged instead of thrown; release keys are idempotent, so a later
+     * repair can safely release again.
+     *
+     * @return whether the stock was returned
+     */
+    public boolean releaseAfterTransition(Order order) {
+        try {
+            release(order.getId(), order.getReservationAttempt(), quantities(order.getItems()));
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Failed to restore stock for order {}: {}", order.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void compensate(String orderId, int attempt, List<StockAdjustment> reserved) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        reserved.forEach(adjustment -> quantities.put(adjustment.getProductId(), -adjustment.getDelta()));
+        try {
+            release(orderId, attempt, quantities);
+        } catch (RuntimeException e) {
+            log.error("Failed to release reserved stock for order {}: {}", orderId, e.getMessage());
+        }
+    }
+
+    private List<CompletableFuture<Void>> submit(List<StockAdjustment> adjustments) {
+        return adjustments.stream()
+                .map(adjustment -> CompletableFuture.runAsync(() -> productGateway.adjustStock(adjustment), executor))
+                .toList();
+    }
+
+    private static List<StockAdjustment> adjustments(String orderId, int attempt, Map<Long, Integer> quantities,
+                                                     int sign, String action) {
+        String suffix = attempt == 0 ? action : action + ":" + attempt;
+        List<StockAdjustment> adjustments = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> adjustments.add(
+                new StockAdjustment(productId, sign * quantity, orderId + ":" + productId + ":" + suffix)));
+        return adjustments;
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        return e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+}
@@ -1,5 +1,14 @@
 package com.ecommerce.orderservice.service;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -9,28 +18,141 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Map;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Obtains client-credentials tokens from Keycloak and caches them until shortly before they expire.
+ * Callers get the cached token without blocking while a single background refresh replaces it;
+ * only an expired or missing token makes callers wait, and then only one of them hits Keycloak.
+ */
 @Service
+@Slf4j
 public class TokenService {
+    private static final long DEFAULT_EXPIRES_IN_SECONDS = 60;
+
     private final RestTemplate restTemplate;
     private final String tokenUrl;
     private final String clientId;
     private final String clientSecret;
+    private final Duration refreshSkew;
+    private final double refreshJitter;
+    private final Clock clock;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicBoolean backgroundRefreshScheduled = new AtomicBoolean();
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "service-token-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile CachedToken cachedToken;
 
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter refreshFailures;
+    private final Timer refreshTimer;
+
+    @Autowired
     public TokenService(
-            RestTemplate restTemplate,
+            @Qualifier("keycloakRestTemplate") RestTemplate restTemplate,
+            MeterRegistry meterRegistry,
             @Value("${spring.security.oauth2.client.provider.keycloak.token-uri}") String tokenUrl,
             @Value("${spring.security.oauth2.client.registration.order-service-client.client-id}") String clientId,
-            @Value("${spring.security.oauth2.client.registration.order-service-client.client-secret}") String clientSecret
+            @Value("${spring.security.oauth2.client.registration.order-service-client.client-secret}") String clientSecret,
+            @Value("${order.service-token.refresh-skew:30s}") Duration refreshSkew,
+            @Value("${order.service-token.refresh-jitter:0.1}") double refreshJitter
     ) {
+        this(restTemplate, meterRegistry, tokenUrl, clientId, clientSecret, refreshSkew, refreshJitter, Clock.systemUTC());
+    }
+
+    TokenService(RestTemplate restTemplate, MeterRegistry meterRegistry, String tokenUrl, String clientId,
+                 String clientSecret, Duration refreshSkew, double refreshJitter, Clock clock) {
         this.restTemplate = restTemplate;
         this.tokenUrl = tokenUrl;
         this.clientId = clientId;
         this.clientSecret = clientSecret;
+        this.refreshSkew = refreshSkew;
+        this.refreshJitter = refreshJitter;
+        this.clock = clock;
+        this.hits = Counter.builder("service.token.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("service.token.cache").tag("result", "miss").register(meterRegistry);
+        this.refreshFailures = Counter.builder("service.token.refresh.failures").register(meterRegistry);
+        this.refreshTimer = Timer.builder("service.token.refresh")
+                .description("Latency of client-credentials token requests to Keycloak")
+                .register(meterRegistry);
     }
 
     public String getServiceToken() {
+        CachedToken current = cachedToken;
+        Instant now = clock.instant();
+        if (current != null && now.isBefore(current.expiresAt())) {
+            hits.increment();
+            if (!now.isBefore(current.refreshAt())) {
+                refreshInBackground();
+            }
+            return current.value();
+        }
+        misses.increment();
+        return refreshIfExpired().value();
+    }
+
+    private CachedToken refreshIfExpired() {
+        refreshLock.lock();
+        try {
+            // Another caller may have refreshed while we were waiting for the lock.
+            CachedToken current = cachedToken;
+            if (current != null && clock.instant().isBefore(current.expiresAt())) {
+                return current;
+            }
+            return fetchAndStore();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void refreshInBackground() {
+        if (!backgroundRefreshScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            refreshLock.lock();
+            try {
+                CachedToken current = cachedToken;
+                if (current == null || !clock.instant().isBefore(current.refreshAt())) {
+                    fetchAndStore();
+                }
+            } catch (RuntimeException e) {
+                // The current token is still valid; the next caller past refreshAt schedules another attempt.
+                log.warn("Background refresh of service token failed: {}", e.getMessage());
+            } finally {
+                refreshLock.unlock();
+                backgroundRefreshScheduled.set(false);
+            }
+        });
+    }
+
+    private CachedToken fetchAndStore() {
+        Timer.Sample sample = Timer.start();
+        try {
+            CachedToken token = requestToken();
+            cachedToken = token;
+            return token;
+        } catch (RuntimeException e) {
+            refreshFailures.increment();
+            throw e;
+        } finally {
+            sample.stop(refreshTimer);
+        }
+    }
+
+    private CachedToken requestToken() {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
 
@@ -41,11 +163,40 @@ public class TokenService {
 
         HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(body, headers);
 
-        Map<String, Object> response = restTemplate.postForObject(tokenUrl, request, Map.class);
-        if (response == null || !response.containsKey("access_token")) {
+        TokenResponse response = restTemplate.postForObject(tokenUrl, request, TokenResponse.class);
+        if (response == null || response.accessToken() == null) {
             throw new IllegalStateException("Failed to obtain service token");
         }
 
-        return "Bearer " + response.get("access_token");
+        long expiresIn = response.expiresIn() != null ? response.expiresIn() : DEFAULT_EXPIRES_IN_SECONDS;
+        Instant issuedAt = clock.instant();
+        Instant expiresAt = issuedAt.plusSeconds(expiresIn);
+        log.debug("Obtained service token valid for {}s", expiresIn);
+        return new CachedToken("Bearer " + response.accessToken(), expiresAt, refreshAt(issuedAt, expiresIn));
+    }
+
+    /**
+     * Schedules the refresh ahead of expiry by the configured skew (capped at half the lifetime for short-lived
+     * tokens) plus a random jitter, so replicas that started together do not all refresh in the same instant.
+     */
+    private Instant refreshAt(Instant issuedAt, long expiresIn) {
+        long lifetimeMillis = expiresIn * 1000;
+        long skewMillis = Math.min(refreshSkew.toMillis(), lifetimeMillis / 2);
+        long jitterMillis = (long) (lifetimeMillis * refreshJitter * ThreadLocalRandom.current().nextDouble());
+        long refreshAfterMillis = Math.max(0, lifetimeMillis - skewMillis - jitterMillis);
+        return issuedAt.plusMillis(refreshAfterMillis);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private record CachedToken(String value, Instant expiresAt, Instant refreshAt) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record TokenResponse(@JsonProperty("access_token") String accessToken,
+                                 @JsonProperty("expires_in") Long expiresIn) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+package com.ecommerce.orderservice.benchmark;
+
+import com.ecommerce.orderservice.client.DownstreamPolicy;
+import com.ecommerce.orderservice.client.Product;
+import com.ecommerce.orderservice.client.RestProductGateway;
+import com.ecommerce.orderservice.service.OrderPricingAccess;
+import com.ecommerce.orderservice.service.TokenService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Looking up and pricing a cart of {@code lines} products through {@link RestProductGateway} against a local stub
+ * product service that answers each request after {@code latencyMillis}: one batch request per cart with
+ * {@code batchEndpoints}, otherwise one request per line fanned out concurrently.
+ * Run with {@code mvn -Pjmh verify -Djmh.includes=CartPricingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartPricingBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int lines;
+
+    @Param({"false", "true"})
+    public boolean batchEndpoints;
+
+    @Param({"2"})
+    public int latencyMillis;
+
+    private final Map<Long, Integer> quantities = new LinkedHashMap<>();
+    private HttpServer productService;
+    private ExecutorService gatewayThreads;
+    private RestProductGateway gateway;
+
+    @Setup
+    public void startStubProductService() throws IOException {
+        productService = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        productService.createContext("/api/products", this::handle);
+        productService.setExecutor(Executors.newFixedThreadPool(64));
+        productService.start();
+
+        for (long productId = 1; productId <= lines; productId++) {
+            quantities.put(productId, 1 + (int) (productId % 5));
+        }
+        TokenService tokenService = mock(TokenService.class);
+        when(tokenService.getServiceToken()).thenReturn("Bearer benchmark");
+        // The same width as the default productServiceExecutor.
+        gatewayThreads = Executors.newFixedThreadPool(32);
+        DownstreamPolicy policy = new DownstreamPolicy(RetryTemplate.builder().maxAttempts(1).build(),
+                Bulkhead.ofDefaults("product"), CircuitBreaker.ofDefaults("product"));
+        gateway = new RestProductGateway(new RestTemplate(), tokenService, new ConcurrentTaskExecutor(gatewayThreads),
+                policy, "http://localhost:" + productService.getAddress().getPort() + "/api/products", batchEndpoints);
+    }
+
+    @TearDown
+    public void stopStubProductService() {
+        gatewayThreads.shutdownNow();
+        productService.stop(0);
+    }
+
+    @Benchmark
+    public BigDecimal priceCart() {
+        Map<Long, Product> products = gateway.getProducts(quantities.keySet());
+        return OrderPricingAccess.total(quantities, products);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getQuery();
+        String body = query != null && query.startsWith("ids=")
+                ? Arrays.stream(query.substring(4).split(","))
+                        .map(id -> json(Long.parseLong(id)))
+                        .collect(Collectors.joining(",", "[", "]"))
+                : json(Long.parseLong(path.substring(path.lastIndexOf('/') + 1)));
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static String json(long id) {
+        return "{\"id\":" + id + ",\"name\":\"product-" + id + "\",\"price\":" + (100 + id) + ".99,\"stock\":1000}";
+    }
+}
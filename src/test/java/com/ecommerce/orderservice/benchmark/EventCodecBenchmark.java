@@ -0,0 +1,85 @@
+package com.ecommerce.orderservice.benchmark;
+
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.event.OrderEvent;
+import com.ecommerce.orderservice.event.PaymentEvent;
+import com.ecommerce.orderservice.event.codec.EventDeserializer;
+import com.ecommerce.orderservice.event.codec.EventSchemas;
+import com.ecommerce.orderservice.event.codec.EventSerializer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialize and deserialize cost of an ORDER_EVENTS and a PAYMENT_EVENTS record in each wire format. Message sizes
+ * are logged once per fork, next to the timings.
+ * Run with {@code mvn -Pjmh verify -Djmh.includes=EventCodecBenchmark}.
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventCodecBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    public EventSerializer.Format format;
+
+    private EventSerializer serializer;
+    private final EventDeserializer<OrderEvent> orderDeserializer = new EventDeserializer<>(EventSchemas.ORDER);
+    private final EventDeserializer<PaymentEvent> paymentDeserializer = new EventDeserializer<>(EventSchemas.PAYMENT);
+    private OrderEvent orderEvent;
+    private PaymentEvent paymentEvent;
+    private byte[] orderBytes;
+    private byte[] paymentBytes;
+
+    @Setup
+    public void encode() {
+        serializer = new EventSerializer(format);
+        String orderId = new ObjectId().toHexString();
+        orderEvent = new OrderEvent();
+        orderEvent.setOrderId(orderId);
+        orderEvent.setStatus(OrderStatus.OUT_FOR_DELIVERY);
+        paymentEvent = new PaymentEvent();
+        paymentEvent.setOrderId(orderId);
+        paymentEvent.setStatus(PaymentEvent.Status.PAYMENT_FAILED);
+        paymentEvent.setReason("card declined");
+        orderBytes = serializer.serialize("ORDER_EVENTS", orderEvent);
+        paymentBytes = serializer.serialize("PAYMENT_EVENTS", paymentEvent);
+        log.info("{}: OrderEvent {} bytes, PaymentEvent {} bytes", format, orderBytes.length, paymentBytes.length);
+    }
+
+    @Benchmark
+    public byte[] serializeOrderEvent() {
+        return serializer.serialize("ORDER_EVENTS", orderEvent);
+    }
+
+    @Benchmark
+    public OrderEvent deserializeOrderEvent() {
+        return orderDeserializer.deserialize("ORDER_EVENTS", orderBytes);
+    }
+
+    @Benchmark
+    public byte[] serializePaymentEvent() {
+        return serializer.serialize("PAYMENT_EVENTS", paymentEvent);
+    }
+
+    @Benchmark
+    public PaymentEvent deserializePaymentEvent() {
+        return paymentDeserializer.deserialize("PAYMENT_EVENTS", paymentBytes);
+    }
+}
@@ -0,0 +1,137 @@
+package com.ecommerce.orderservice.benchmark;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.event.LogisticsEvent;
+import com.ecommerce.orderservice.event.OrderEvent;
+import com.ecommerce.orderservice.event.PaymentEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of the payloads on the request path (an {@link Order} with {@code items} lines, as posted and as
+ * returned) and of the three event classes as consumed from and produced to Kafka in JSON format.
+ * Run with {@code mvn -Pjmh verify -Djmh.includes=JsonMappingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonMappingBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int items;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final ObjectWriter writer = objectMapper.writer();
+    private final ObjectReader orderReader = objectMapper.readerFor(Order.class);
+    private final ObjectReader orderEventReader = objectMapper.readerFor(OrderEvent.class);
+    private final ObjectReader paymentEventReader = objectMapper.readerFor(PaymentEvent.class);
+    private final ObjectReader logisticsEventReader = objectMapper.readerFor(LogisticsEvent.class);
+
+    private Order order;
+    private OrderEvent orderEvent;
+    private PaymentEvent paymentEvent;
+    private LogisticsEvent logisticsEvent;
+    private byte[] orderJson;
+    private byte[] orderEventJson;
+    private byte[] paymentEventJson;
+    private byte[] logisticsEventJson;
+
+    @Setup
+    public void encode() throws IOException {
+        List<Order.OrderItem> lines = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            Order.OrderItem item = new Order.OrderItem();
+            item.setProductId(1000L + i);
+            item.setQuantity(1 + i % 5);
+            lines.add(item);
+        }
+        String orderId = new ObjectId().toHexString();
+        order = new Order();
+        order.setId(orderId);
+        order.setUserId("8f14e45f-ceea-467f-a0e6-b1c2d3e4f5a6");
+        order.setItems(lines);
+        order.setPaymentMethod(Order.PaymentMethod.ONLINE);
+        order.setTotalAmount(new BigDecimal("1249.90"));
+        order.setStatus(OrderStatus.PLACED);
+
+        orderEvent = new OrderEvent();
+        orderEvent.setOrderId(orderId);
+        orderEvent.setStatus(OrderStatus.CANCELLED);
+        paymentEvent = new PaymentEvent();
+        paymentEvent.setOrderId(orderId);
+        paymentEvent.setStatus(PaymentEvent.Status.PAYMENT_FAILED);
+        paymentEvent.setReason("card declined");
+        logisticsEvent = new LogisticsEvent();
+        logisticsEvent.setOrderId(orderId);
+        logisticsEvent.setStatus(LogisticsEvent.Status.OUT_FOR_DELIVERY);
+
+        orderJson = writer.writeValueAsBytes(order);
+        orderEventJson = writer.writeValueAsBytes(orderEvent);
+        paymentEventJson = writer.writeValueAsBytes(paymentEvent);
+        logisticsEventJson = writer.writeValueAsBytes(logisticsEvent);
+    }
+
+    @Benchmark
+    public byte[] serializeOrder() throws IOException {
+        return writer.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public Order deserializeOrder() throws IOException {
+        return orderReader.readValue(orderJson);
+    }
+
+    @Benchmark
+    public byte[] serializeOrderEvent() throws IOException {
+        return writer.writeValueAsBytes(orderEvent);
+    }
+
+    @Benchmark
+    public OrderEvent deserializeOrderEvent() throws IOException {
+        return orderEventReader.readValue(orderEventJson);
+    }
+
+    @Benchmark
+    public byte[] serializePaymentEvent() throws IOException {
+        return writer.writeValueAsBytes(paymentEvent);
+    }
+
+    @Benchmark
+    public PaymentEvent deserializePaymentEvent() throws IOException {
+        return paymentEventReader.readValue(paymentEventJson);
+    }
+
+    @Benchmark
+    public byte[] serializeLogisticsEvent() throws IOException {
+        return writer.writeValueAsBytes(logisticsEvent);
+    }
+
+    @Benchmark
+    public LogisticsEvent deserializeLogisticsEvent() throws IOException {
+        return logisticsEventReader.readValue(logisticsEventJson);
+    }
+}
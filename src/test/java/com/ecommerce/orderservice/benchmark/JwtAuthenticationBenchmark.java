@@ -0,0 +1,89 @@
+package com.ecommerce.orderservice.benchmark;
+
+import com.ecommerce.orderservice.config.CachingJwtDecoder;
+import com.ecommerce.orderservice.config.SecurityConfig;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authentication work per request for a client that reuses its access token: decoding and verifying a
+ * Keycloak-style RS256 token and mapping its roles, with signature verification and stream-built authorities on
+ * every request ({@code verifyEveryRequest}) against the cached decoder and interned authorities
+ * ({@code cachedAndInterned}). The JWK set is in memory, so neither side includes fetching keys.
+ * Run with {@code mvn -Pjmh verify -Djmh.includes=JwtAuthenticationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+    private JwtDecoder verifyingDecoder;
+    private JwtDecoder cachingDecoder;
+    private final JwtAuthenticationConverter legacyConverter = JwtRoleMappingBenchmark.legacyConverter();
+    private final JwtAuthenticationConverter converter = new SecurityConfig().jwtAuthenticationConverter();
+    private String token;
+
+    @Setup
+    public void signToken() throws JOSEException {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("benchmark").generate();
+        verifyingDecoder = NimbusJwtDecoder.withPublicKey(key.toRSAPublicKey()).build();
+        cachingDecoder = new CachingJwtDecoder(verifyingDecoder, 10_000, Duration.ofMinutes(5),
+                new SimpleMeterRegistry());
+        token = signedToken(key);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken verifyEveryRequest() {
+        return legacyConverter.convert(verifyingDecoder.decode(token));
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken cachedAndInterned() {
+        return converter.convert(cachingDecoder.decode(token));
+    }
+
+    static String signedToken(RSAKey key) throws JOSEException {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("8f14e45f-ceea-467f-a0e6-b1c2d3e4f5a6")
+                .issuer("http://localhost:8088/realms/ecommerce")
+                .claim("preferred_username", "alice")
+                .claim("realm_access", Map.of("roles", List.of("offline_access", "uma_authorization", "user")))
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(3600)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+}
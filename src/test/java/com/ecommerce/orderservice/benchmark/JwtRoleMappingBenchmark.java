@@ -0,0 +1,90 @@
+package com.ecommerce.orderservice.benchmark;
+
+import com.ecommerce.orderservice.config.SecurityConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link SecurityConfig#jwtAuthenticationConverter()} run on every authenticated request: Keycloak
+ * {@code realm_access.roles} mapped to {@code ROLE_} authorities, for tokens carrying {@code roles} roles.
+ * {@code legacyStream} is the stream-per-request mapping the converter used before authorities were interned.
+ * Run with {@code mvn -Pjmh verify -Djmh.includes=JwtRoleMappingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtRoleMappingBenchmark {
+
+    @Param({"2", "10"})
+    public int roles;
+
+    private final JwtAuthenticationConverter converter = new SecurityConfig().jwtAuthenticationConverter();
+    private final JwtAuthenticationConverter legacyConverter = legacyConverter();
+    private Jwt jwt;
+
+    @Setup
+    public void createToken() {
+        List<String> realmRoles = new ArrayList<>(List.of("offline_access", "user"));
+        for (int i = realmRoles.size(); i < roles; i++) {
+            realmRoles.add("role_" + i);
+        }
+        Instant now = Instant.now();
+        jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("8f14e45f-ceea-467f-a0e6-b1c2d3e4f5a6")
+                .claim("preferred_username", "alice")
+                .claim("realm_access", Map.of("roles", realmRoles))
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(300))
+                .build();
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken convert() {
+        return converter.convert(jwt);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken legacyStream() {
+        return legacyConverter.convert(jwt);
+    }
+
+    @SuppressWarnings("unchecked")
+    static JwtAuthenticationConverter legacyConverter() {
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setPrincipalClaimName("preferred_username");
+        converter.setJwtGrantedAuthoritiesConverter(jwt -> {
+            Map<String, Object> realmAccess = (Map<String, Object>) jwt.getClaims().get("realm_access");
+            List<String> roles = realmAccess != null ? (List<String>) realmAccess.get("roles") : Collections.emptyList();
+            return roles.stream()
+                    .filter(role -> role != null)
+                    .map(role -> new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))
+                    .collect(Collectors.toList());
+        });
+        return converter;
+    }
+}
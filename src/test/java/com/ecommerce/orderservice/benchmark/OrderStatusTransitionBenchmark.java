@@ -0,0 +1,90 @@
+package com.ecommerce.orderservice.benchmark;
+
+import com.ecommerce.orderservice.entity.OrderStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transition checks over a mix of (current, target) pairs: the {@link OrderStatus} table against the string
+ * comparisons the event handlers used before it. Strings are fresh copies, as they are after deserialization.
+ * Run with {@code mvn -Pjmh verify -Djmh.includes=OrderStatusTransitionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderStatusTransitionBenchmark {
+    private static final int PAIRS = 1024;
+    private static final List<String> OPEN_STATUSES = List.of("PENDING", "PLACED");
+
+    private final OrderStatus[] enumCurrent = new OrderStatus[PAIRS];
+    private final OrderStatus[] enumTarget = new OrderStatus[PAIRS];
+    private final String[] stringCurrent = new String[PAIRS];
+    private final String[] stringTarget = new String[PAIRS];
+
+    @Setup
+    public void generatePairs() {
+        Random random = new Random(42);
+        OrderStatus[] statuses = OrderStatus.values();
+        for (int i = 0; i < PAIRS; i++) {
+            enumCurrent[i] = statuses[random.nextInt(statuses.length)];
+            enumTarget[i] = statuses[random.nextInt(statuses.length)];
+            stringCurrent[i] = new String(enumCurrent[i].name());
+            stringTarget[i] = new String(enumTarget[i].name());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int enumTable() {
+        int allowed = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            if (enumCurrent[i].canTransitionTo(enumTarget[i])) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public int stringChecks() {
+        int allowed = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            if (legacyAllowed(stringCurrent[i], stringTarget[i])) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+
+    private static boolean legacyAllowed(String current, String target) {
+        if ("PLACED".equals(target)) {
+            return "PENDING".equals(current);
+        }
+        if ("FAILED".equals(target) || "CANCELLED".equals(target)) {
+            return OPEN_STATUSES.contains(current);
+        }
+        if ("RETURNED".equals(target)) {
+            return "DELIVERED".equals(current);
+        }
+        return ("SHIPPED".equals(target) && "PLACED".equals(current))
+                || ("OUT_FOR_DELIVERY".equals(target) && "SHIPPED".equals(current))
+                || ("DELIVERED".equals(target) && "OUT_FOR_DELIVERY".equals(current));
+    }
+}
@@ -0,0 +1,59 @@
+package com.ecommerce.orderservice.benchmark;
+
+import com.ecommerce.orderservice.client.Product;
+import com.ecommerce.orderservice.service.OrderPricingAccess;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderPricingAccess#total OrderPricing.total}, the {@code BigDecimal} arithmetic of pricing an order, over
+ * {@code lines} lines with two-decimal prices as the product service returns them.
+ * Run with {@code mvn -Pjmh verify -Djmh.includes=OrderTotalBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderTotalBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int lines;
+
+    private final Map<Long, Integer> quantities = new LinkedHashMap<>();
+    private final Map<Long, Product> products = new HashMap<>();
+
+    @Setup
+    public void generateOrder() {
+        Random random = new Random(42);
+        for (long productId = 1; productId <= lines; productId++) {
+            Product product = new Product();
+            product.setId(productId);
+            product.setPrice(BigDecimal.valueOf(100 + random.nextInt(99_900), 2));
+            products.put(productId, product);
+            quantities.put(productId, 1 + random.nextInt(5));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal total() {
+        return OrderPricingAccess.total(quantities, products);
+    }
+}
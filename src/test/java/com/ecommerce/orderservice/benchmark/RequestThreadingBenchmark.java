@@ -0,0 +1,150 @@
+package com.ecommerce.orderservice.benchmark;
+
+import com.ecommerce.orderservice.client.DownstreamPolicy;
+import com.ecommerce.orderservice.client.RestProductGateway;
+import com.ecommerce.orderservice.service.TokenService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Load test of the blocking request path with platform versus virtual request threads. An embedded Tomcat, set up
+ * as Boot sets it up for each value of {@code spring.threads.virtual.enabled}, serves a request that looks a cart
+ * up through {@link RestProductGateway} against a stub product service answering after {@code latencyMillis};
+ * 400 clients call it in a closed loop. Throughput mode gives requests per second, sample mode the p99 latency.
+ * With platform threads Tomcat's 200 workers cap throughput near {@code 200 / latency} and requests queue behind
+ * them; with virtual threads every client is served concurrently.
+ * Run with {@code mvn -Pjmh verify -Djmh.includes=RequestThreadingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(1)
+public class RequestThreadingBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threading;
+
+    @Param({"200"})
+    public int latencyMillis;
+
+    private HttpServer productService;
+    private ExecutorService productServiceThreads;
+    private WebServer orderService;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void start() throws IOException {
+        productServiceThreads = Executors.newVirtualThreadPerTaskExecutor();
+        productService = HttpServer.create(new InetSocketAddress("localhost", 0), 1_000);
+        productService.createContext("/api/products", this::handleProductLookup);
+        productService.setExecutor(productServiceThreads);
+        productService.start();
+
+        TokenService tokenService = mock(TokenService.class);
+        when(tokenService.getServiceToken()).thenReturn("Bearer benchmark");
+        // Neither the retry nor the bulkhead may become the limit under test.
+        DownstreamPolicy policy = new DownstreamPolicy(RetryTemplate.builder().maxAttempts(1).build(),
+                Bulkhead.of("product", BulkheadConfig.custom().maxConcurrentCalls(10_000).build()),
+                CircuitBreaker.ofDefaults("product"));
+        String productServiceUrl = "http://localhost:" + productService.getAddress().getPort() + "/api/products";
+        RestProductGateway gateway = new RestProductGateway(new RestTemplate(), tokenService,
+                new ConcurrentTaskExecutor(productServiceThreads), policy, productServiceUrl, true);
+
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+        if ("virtual".equals(threading)) {
+            // What Boot applies when spring.threads.virtual.enabled=true.
+            factory.addProtocolHandlerCustomizers(handler -> handler.setExecutor(
+                    new VirtualThreadExecutor("tomcat-handler-")));
+        }
+        orderService = factory.getWebServer(servletContext -> servletContext
+                .addServlet("orders", new CartLookupServlet(gateway))
+                .addMapping("/orders"));
+        orderService.start();
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + orderService.getPort() + "/orders")).build();
+    }
+
+    @TearDown
+    public void stop() {
+        orderService.stop();
+        productService.stop(0);
+        productServiceThreads.shutdownNow();
+    }
+
+    @Benchmark
+    public int placeRequest() throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private void handleProductLookup(HttpExchange exchange) throws IOException {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = "[{\"id\":1,\"name\":\"product-1\",\"price\":19.99}]".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private static class CartLookupServlet extends HttpServlet {
+        private final transient RestProductGateway gateway;
+
+        CartLookupServlet(RestProductGateway gateway) {
+            this.gateway = gateway;
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+            gateway.getProducts(List.of(1L));
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+        }
+    }
+}
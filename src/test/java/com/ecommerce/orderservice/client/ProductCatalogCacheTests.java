@@ -0,0 +1,123 @@
+package com.ecommerce.orderservice.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCatalogCacheTests {
+    private static final int CATALOG_SIZE = 10_000;
+
+    private final CountingGateway gateway = new CountingGateway();
+    private final ProductCatalogCache cache =
+            new ProductCatalogCache(gateway, new SimpleMeterRegistry(), 1_000, Duration.ofMinutes(1));
+
+    @Test
+    void zipfWorkloadMostlyHitsTheCache() {
+        ZipfSampler skus = new ZipfSampler(CATALOG_SIZE, 1.1, new Random(42));
+        int lookups = 100_000;
+        for (int i = 0; i < lookups; i++) {
+            cache.getProducts(List.of(skus.next()));
+        }
+
+        // Without the cache every lookup is a downstream call. Holding the hottest 10% of SKUs covers ~84% of
+        // this distribution, so well under a quarter of the lookups should reach the product service.
+        assertThat(gateway.productsFetched.get()).isLessThan(lookups / 4);
+    }
+
+    @Test
+    void neverServesStockAndRefetchesAfterInvalidation() {
+        Product product = cache.getProducts(List.of(7L)).get(7L);
+        assertThat(product.getPrice()).isEqualByComparingTo("7");
+        assertThat(product.getStock()).isNull();
+
+        cache.getProducts(List.of(7L));
+        assertThat(gateway.productsFetched.get()).isEqualTo(1);
+
+        cache.invalidate(7L);
+        cache.getProducts(List.of(7L));
+        assertThat(gateway.productsFetched.get()).isEqualTo(2);
+    }
+
+    @Test
+    void unknownProductsAreAbsent() {
+        assertThat(cache.getProducts(List.of(-1L))).isEmpty();
+    }
+
+    @Test
+    void productsWithoutAPriceAreAbsentAndNotCached() {
+        assertThat(cache.getProducts(List.of(0L))).isEmpty();
+        assertThat(cache.getProducts(List.of(0L))).isEmpty();
+        assertThat(gateway.productsFetched.get()).isEqualTo(2);
+    }
+
+    private static class CountingGateway implements ProductGateway {
+        private final AtomicInteger productsFetched = new AtomicInteger();
+
+        @Override
+        public Map<Long, Product> getProducts(Collection<Long> productIds) {
+            Map<Long, Product> products = new HashMap<>();
+            for (Long id : productIds) {
+                if (id < 0) {
+                    continue;
+                }
+                productsFetched.incrementAndGet();
+                Product product = new Product();
+                product.setId(id);
+                product.setPrice(id == 0 ? null : BigDecimal.valueOf(id));
+                product.setStock(100);
+                products.put(id, product);
+            }
+            return products;
+        }
+
+        @Override
+        public void adjustStock(StockAdjustment adjustment) {
+        }
+    }
+
+    /**
+     * Samples ranks 1..n with probability proportional to 1 / rank^exponent.
+     */
+    private static class ZipfSampler {
+        private final double[] cumulative;
+        private final Random random;
+
+        ZipfSampler(int n, double exponent, Random random) {
+            this.random = random;
+            this.cumulative = new double[n];
+            double sum = 0;
+            for (int rank = 1; rank <= n; rank++) {
+                sum += 1 / Math.pow(rank, exponent);
+                cumulative[rank - 1] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        long next() {
+            double u = random.nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low + 1;
+        }
+    }
+}
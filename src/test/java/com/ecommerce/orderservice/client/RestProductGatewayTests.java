@@ -0,0 +1,147 @@
+package com.ecommerce.orderservice.client;
+
+import com.ecommerce.orderservice.exception.InsufficientStockException;
+import com.ecommerce.orderservice.service.TokenService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RestProductGatewayTests {
+    private static final long UNKNOWN = 404;
+    private static final long UNPRICED = 500;
+    private static final long OUT_OF_STOCK = 409;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer productService;
+    private ExecutorService productServiceThreads;
+    private ExecutorService gatewayThreads;
+    private String url;
+
+    @BeforeEach
+    void startStubProductService() throws IOException {
+        productService = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        productService.createContext("/api/products", this::handle);
+        productServiceThreads = Executors.newFixedThreadPool(16);
+        productService.setExecutor(productServiceThreads);
+        productService.start();
+        gatewayThreads = Executors.newFixedThreadPool(8);
+        url = "http://localhost:" + productService.getAddress().getPort() + "/api/products";
+    }
+
+    @AfterEach
+    void stop() {
+        gatewayThreads.shutdownNow();
+        productService.stop(0);
+        productServiceThreads.shutdownNow();
+    }
+
+    @Test
+    void fansOutOneRequestPerProductWithoutBatchEndpoints() {
+        Map<Long, Product> products = gateway(false).getProducts(List.of(1L, 2L, 3L, UNKNOWN));
+
+        assertThat(requests.get()).isEqualTo(4);
+        assertThat(products).containsOnlyKeys(1L, 2L, 3L);
+        assertThat(products.get(2L).getPrice()).isEqualByComparingTo("2.50");
+    }
+
+    @Test
+    void fetchesACartInOneRequestWithBatchEndpoints() {
+        Map<Long, Product> products = gateway(true).getProducts(List.of(1L, 2L, 3L, UNKNOWN));
+
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(products).containsOnlyKeys(1L, 2L, 3L);
+        assertThat(products.get(3L).getPrice()).isEqualByComparingTo("3.50");
+    }
+
+    @Test
+    void productsWithoutAPriceAreReturnedAsTheServiceSentThem() {
+        // The gateway does not judge catalog data; ProductCatalogCache and pricing treat these as unknown.
+        assertThat(gateway(false).getProducts(List.of(UNPRICED)).get(UNPRICED).getPrice()).isNull();
+    }
+
+    @Test
+    void conflictingAdjustmentIsInsufficientStock() {
+        assertThatThrownBy(() -> gateway(false).adjustStock(new StockAdjustment(OUT_OF_STOCK, -1, "order-1")))
+                .isInstanceOf(InsufficientStockException.class);
+    }
+
+    @Test
+    void adjustmentOfUnknownProductIsRejected() {
+        assertThatThrownBy(() -> gateway(false).adjustStock(new StockAdjustment(UNKNOWN, -1, "order-1")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .isNotInstanceOf(InsufficientStockException.class);
+    }
+
+    private RestProductGateway gateway(boolean batchEndpoints) {
+        TokenService tokenService = mock(TokenService.class);
+        when(tokenService.getServiceToken()).thenReturn("Bearer test");
+        DownstreamPolicy policy = new DownstreamPolicy(RetryTemplate.builder().maxAttempts(1).build(),
+                Bulkhead.ofDefaults("product"), CircuitBreaker.ofDefaults("product"));
+        return new RestProductGateway(new RestTemplate(), tokenService, new ConcurrentTaskExecutor(gatewayThreads),
+                policy, url, batchEndpoints);
+    }
+
+    /**
+     * GET /api/products/{id}, GET /api/products?ids=... and POST /api/products/{id}/stock/adjustments. Product 404
+     * does not exist, 500 has no price and 409 is out of stock; every other product costs {@code id + 0.50}.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getQuery();
+        if ("POST".equals(exchange.getRequestMethod()) && path.endsWith("/stock/adjustments")) {
+            long productId = Long.parseLong(path.split("/")[3]);
+            respond(exchange, productId == UNKNOWN ? 404 : productId == OUT_OF_STOCK ? 409 : 204, null);
+        } else if (query != null && query.startsWith("ids=")) {
+            List<String> products = new ArrayList<>();
+            Arrays.stream(query.substring(4).split(",")).map(Long::valueOf)
+                    .filter(id -> id != UNKNOWN)
+                    .forEach(id -> products.add(json(id)));
+            respond(exchange, 200, products.stream().collect(Collectors.joining(",", "[", "]")));
+        } else {
+            long productId = Long.parseLong(path.substring(path.lastIndexOf('/') + 1));
+            respond(exchange, productId == UNKNOWN ? 404 : 200, productId == UNKNOWN ? null : json(productId));
+        }
+    }
+
+    private static String json(long id) {
+        String price = id == UNPRICED ? "null" : id + ".50";
+        return "{\"id\":" + id + ",\"name\":\"product-" + id + "\",\"price\":" + price + ",\"stock\":10}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,142 @@
+package com.ecommerce.orderservice.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Slf4j
+class CachingJwtDecoderTests {
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    private final JwtDecoder delegate = mock(JwtDecoder.class);
+    private final AtomicLong tickerNanos = new AtomicLong();
+    private final CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 100, Duration.ofMinutes(5),
+            new SimpleMeterRegistry(), Clock.fixed(NOW, ZoneOffset.UTC), tickerNanos::get);
+
+    @Test
+    void verifiesATokenOnceUntilItExpires() {
+        when(delegate.decode("token")).thenReturn(jwt(NOW.plusSeconds(60)));
+
+        decoder.decode("token");
+        tickerNanos.addAndGet(Duration.ofSeconds(59).toNanos());
+        decoder.decode("token");
+        verify(delegate, times(1)).decode("token");
+
+        tickerNanos.addAndGet(Duration.ofSeconds(2).toNanos());
+        decoder.decode("token");
+        verify(delegate, times(2)).decode("token");
+    }
+
+    @Test
+    void verifiesRejectedTokensEveryTime() {
+        when(delegate.decode("forged")).thenThrow(new BadJwtException("Signed JWT rejected"));
+
+        assertThatThrownBy(() -> decoder.decode("forged")).isInstanceOf(BadJwtException.class);
+        assertThatThrownBy(() -> decoder.decode("forged")).isInstanceOf(BadJwtException.class);
+        verify(delegate, times(2)).decode("forged");
+    }
+
+    /**
+     * Eight threads authenticate requests from 50 clients that each reuse their token, once verifying every
+     * request and once through the cache, and compare the average authentication time per request.
+     */
+    @Test
+    void cachedAuthenticationIsCheaperUnderLoad() throws Exception {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("test").generate();
+        List<String> tokens = new ArrayList<>();
+        for (int client = 0; client < 50; client++) {
+            tokens.add(signedToken(key, "user-" + client));
+        }
+        JwtDecoder verifying = NimbusJwtDecoder.withPublicKey(key.toRSAPublicKey()).build();
+        JwtDecoder caching = new CachingJwtDecoder(verifying, 10_000, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        JwtAuthenticationConverter converter = new SecurityConfig().jwtAuthenticationConverter();
+
+        long verifiedNanos = authenticate(tokens, token -> converter.convert(verifying.decode(token)) != null);
+        long cachedNanos = authenticate(tokens, token -> converter.convert(caching.decode(token)) != null);
+        log.info("Authentication per request: verify every request {} µs, cached {} µs",
+                verifiedNanos / 1000.0, cachedNanos / 1000.0);
+
+        assertThat(cachedNanos).isLessThan(verifiedNanos);
+    }
+
+    private static long authenticate(List<String> tokens, Function<String, Boolean> authentication) throws Exception {
+        int threads = 8;
+        int requestsPerThread = 2_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            results.add(pool.submit(() -> {
+                long start = System.nanoTime();
+                for (int i = 0; i < requestsPerThread; i++) {
+                    assertThat(authentication.apply(tokens.get((offset + i) % tokens.size()))).isTrue();
+                }
+                return System.nanoTime() - start;
+            }));
+        }
+        long total = 0;
+        for (Future<Long> result : results) {
+            total += result.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        return total / ((long) threads * requestsPerThread);
+    }
+
+    private static Jwt jwt(Instant expiresAt) {
+        return Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("user-1")
+                .issuedAt(NOW)
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    private static String signedToken(RSAKey key, String subject) throws JOSEException {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject(subject)
+                .claim("preferred_username", subject)
+                .claim("realm_access", Map.of("roles", List.of("offline_access", "user")))
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(600)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+}
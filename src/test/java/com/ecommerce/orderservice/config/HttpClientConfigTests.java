@@ -0,0 +1,89 @@
+package com.ecommerce.orderservice.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HttpClientConfigTests {
+    private static final int MAX_CONNECTIONS = 4;
+
+    private HttpServer stub;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HttpComponentsClientHttpRequestFactory requestFactory;
+    private String baseUrl;
+
+    @BeforeEach
+    void start() throws Exception {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/ok", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        stub.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        stub.setExecutor(Executors.newFixedThreadPool(16));
+        stub.start();
+        baseUrl = "http://localhost:" + stub.getAddress().getPort();
+
+        HttpClientProperties.Client client = new HttpClientProperties.Client();
+        client.setMaxConnections(MAX_CONNECTIONS);
+        client.setReadTimeout(Duration.ofMillis(300));
+        requestFactory = HttpClientConfig.requestFactory("product", client, meterRegistry);
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        requestFactory.destroy();
+        stub.stop(0);
+    }
+
+    @Test
+    void reusesPooledConnectionsAcrossConcurrentCalls() throws Exception {
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 400; i++) {
+            callers.execute(() -> restTemplate.getForObject(baseUrl + "/ok", String.class));
+        }
+        callers.shutdown();
+        assertThat(callers.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(clientPorts).hasSizeLessThanOrEqualTo(MAX_CONNECTIONS);
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "product").gauge().value()).isEqualTo(MAX_CONNECTIONS);
+    }
+
+    @Test
+    void boundsReadTimeout() {
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> restTemplate.getForObject(baseUrl + "/slow", String.class));
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+}
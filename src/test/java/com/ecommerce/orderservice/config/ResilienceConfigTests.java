@@ -0,0 +1,133 @@
+package com.ecommerce.orderservice.config;
+
+import com.ecommerce.orderservice.client.DownstreamPolicy;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Fault injection against a local stub: transient 5xx responses, a downstream that stays down, and a slow one.
+ */
+class ResilienceConfigTests {
+    private HttpServer stub;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int failFirst;
+    private volatile long delayMillis;
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private String url;
+
+    @BeforeEach
+    void start() throws Exception {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/products/1", exchange -> {
+            int request = requests.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(request <= failFirst ? 503 : 200, -1);
+            exchange.close();
+        });
+        stub.setExecutor(Executors.newFixedThreadPool(8));
+        stub.start();
+        url = "http://localhost:" + stub.getAddress().getPort() + "/products/1";
+    }
+
+    @AfterEach
+    void stop() {
+        stub.stop(0);
+    }
+
+    @Test
+    void retriesTransientServerErrors() {
+        failFirst = 2;
+        DownstreamPolicy policy = policy(new ResilienceProperties.Policy());
+
+        policy.run(() -> restTemplate.getForEntity(url, Void.class));
+
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void opensCircuitAndFailsFastWhenDownstreamStaysDown() {
+        failFirst = Integer.MAX_VALUE;
+        ResilienceProperties.Policy settings = new ResilienceProperties.Policy();
+        settings.setMaxAttempts(1);
+        settings.setSlidingWindowSize(4);
+        settings.setMinimumNumberOfCalls(4);
+        DownstreamPolicy policy = policy(settings);
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> policy.run(() -> restTemplate.getForEntity(url, Void.class)))
+                    .isInstanceOf(HttpServerErrorException.class);
+        }
+        assertThat(policy.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> policy.run(() -> restTemplate.getForEntity(url, Void.class)))
+                .isInstanceOf(CallNotPermittedException.class);
+        assertThat(requests.get()).isEqualTo(4);
+        assertThat(meterRegistry.get("resilience4j.circuitbreaker.state")
+                .tag("name", "product").tag("state", "open").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheConcurrencyLimit() throws Exception {
+        delayMillis = 500;
+        ResilienceProperties.Policy settings = new ResilienceProperties.Policy();
+        settings.setMaxConcurrentCalls(2);
+        settings.setMaxWait(Duration.ZERO);
+        DownstreamPolicy policy = policy(settings);
+
+        ExecutorService callers = Executors.newFixedThreadPool(6);
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            calls.add(callers.submit(() -> policy.run(() -> restTemplate.getForEntity(url, Void.class))));
+        }
+        int rejected = 0;
+        for (Future<?> call : calls) {
+            try {
+                call.get();
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(BulkheadFullException.class);
+                rejected++;
+            }
+        }
+        callers.shutdown();
+
+        assertThat(rejected).isGreaterThanOrEqualTo(4);
+        assertThat(meterRegistry.get("resilience4j.bulkhead.rejected.calls")
+                .tag("name", "product").counter().count()).isEqualTo(rejected);
+    }
+
+    private DownstreamPolicy policy(ResilienceProperties.Policy settings) {
+        settings.setInitialBackoff(Duration.ofMillis(10));
+        settings.setMaxBackoff(Duration.ofMillis(50));
+        CircuitBreakerRegistry circuitBreakers = new ResilienceConfig().circuitBreakerRegistry(meterRegistry);
+        BulkheadRegistry bulkheads = new ResilienceConfig().bulkheadRegistry(meterRegistry);
+        return ResilienceConfig.policy("product", settings, circuitBreakers, bulkheads, meterRegistry);
+    }
+}
@@ -0,0 +1,215 @@
+package com.ecommerce.orderservice.consumer;
+
+import com.ecommerce.orderservice.config.EventProcessingConfig;
+import com.ecommerce.orderservice.config.ExecutorConfig;
+import com.ecommerce.orderservice.config.KafkaConsumerConfig;
+import com.ecommerce.orderservice.event.LogisticsEvent;
+import com.ecommerce.orderservice.event.PaymentEvent;
+import com.ecommerce.orderservice.repository.ProcessedEventRepository;
+import com.ecommerce.orderservice.service.EventDeduplicator;
+import com.ecommerce.orderservice.service.OrderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Measures how fast the batch listeners drain a topic, and checks that a poll reaches the service in a few lane-sized
+ * calls and that one order's events are handled in the order they were published. Mongo is out of the picture:
+ * the service is mocked, so the numbers are the Kafka side of the pipeline only.
+ */
+@Slf4j
+@SpringJUnitConfig(EventConsumptionBenchmarkTests.Config.class)
+@EmbeddedKafka(partitions = 4, topics = {"PAYMENT_EVENTS", "LOGISTICS_EVENTS"})
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.consumer.group-id=order-service-group",
+        "spring.kafka.consumer.max-poll-records=500",
+        "order.events.consumer-concurrency=2",
+        "order.events.lanes=8"
+})
+class EventConsumptionBenchmarkTests {
+    private static final int EVENTS = 20_000;
+
+    @MockitoBean
+    private OrderService orderService;
+
+    @MockitoBean
+    private ProcessedEventRepository processedEventRepository;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Test
+    void drainsPaymentEventsInPollSizedBatches() throws Exception {
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger received = new AtomicInteger();
+        CountDownLatch drained = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            List<PaymentEvent> batch = invocation.getArgument(0);
+            batchSizes.add(batch.size());
+            if (received.addAndGet(batch.size()) >= EVENTS) {
+                drained.countDown();
+            }
+            return null;
+        }).when(orderService).handlePaymentEvents(anyList());
+
+        long start = System.nanoTime();
+        try (Producer<String, String> producer = producer()) {
+            for (int i = 0; i < EVENTS; i++) {
+                String orderId = "order-" + i;
+                producer.send(new ProducerRecord<>("PAYMENT_EVENTS", orderId,
+                        "{\"orderId\":\"" + orderId + "\",\"status\":\"PAYMENT_RECEIVED\"}"));
+            }
+        }
+        assertThat(drained.await(60, TimeUnit.SECONDS)).isTrue();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        log.info("Consumed {} payment events in {} ms ({} events/s) across {} batches",
+                EVENTS, elapsed.toMillis(), EVENTS * 1000L / Math.max(1, elapsed.toMillis()), batchSizes.size());
+        assertThat(received).hasValue(EVENTS);
+        assertThat(batchSizes).allMatch(size -> size <= 500);
+        assertThat(batchSizes.size()).isLessThan(EVENTS / 10);
+    }
+
+    @Test
+    void handlesEachOrdersPaymentEventsInPublishOrder() throws Exception {
+        // Distinct statuses per order, or the deduplicator would drop the repeats; the sequence rides in the reason.
+        PaymentEvent.Status[] statuses = PaymentEvent.Status.values();
+        int orders = 1000;
+        int perOrder = statuses.length;
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        AtomicInteger received = new AtomicInteger();
+        CountDownLatch drained = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            List<PaymentEvent> batch = invocation.getArgument(0);
+            for (PaymentEvent event : batch) {
+                seen.computeIfAbsent(event.getOrderId(), ignored -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(Integer.valueOf(event.getReason()));
+            }
+            if (received.addAndGet(batch.size()) >= orders * perOrder) {
+                drained.countDown();
+            }
+            return null;
+        }).when(orderService).handlePaymentEvents(anyList());
+
+        try (Producer<String, String> producer = producer()) {
+            for (int sequence = 0; sequence < perOrder; sequence++) {
+                for (int i = 0; i < orders; i++) {
+                    String orderId = "ordered-" + i;
+                    producer.send(new ProducerRecord<>("PAYMENT_EVENTS", orderId,
+                            "{\"orderId\":\"" + orderId + "\",\"status\":\"" + statuses[sequence]
+                                    + "\",\"reason\":\"" + sequence + "\"}"));
+                }
+            }
+        }
+
+        assertThat(drained.await(60, TimeUnit.SECONDS)).isTrue();
+        assertThat(seen).hasSize(orders);
+        seen.values().forEach(sequences -> assertThat(sequences).hasSize(perOrder).isSorted());
+    }
+
+    @Test
+    void handlesAReplayedTopicOnlyOnce() throws Exception {
+        int orders = 200;
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch drained = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            List<PaymentEvent> batch = invocation.getArgument(0);
+            batch.forEach(event -> handled.add(event.getOrderId() + ":" + event.getStatus()));
+            if (handled.size() >= 2 * orders) {
+                drained.countDown();
+            }
+            return null;
+        }).when(orderService).handlePaymentEvents(anyList());
+
+        try (Producer<String, String> producer = producer()) {
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i < orders; i++) {
+                    producer.send(paymentEvent("replay-" + i, "PAYMENT_FAILED"));
+                }
+            }
+            // A new event per order, on the same partition behind its replayed copy: once these are handled,
+            // the replay has been consumed too.
+            for (int i = 0; i < orders; i++) {
+                producer.send(paymentEvent("replay-" + i, "REFUNDED"));
+            }
+        }
+
+        assertThat(drained.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).hasSize(2 * orders).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void skipsUndeserializableLogisticsEventsWithoutDroppingTheRestOfTheBatch() throws Exception {
+        List<LogisticsEvent> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch drained = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            List<LogisticsEvent> batch = invocation.getArgument(0);
+            delivered.addAll(batch);
+            if (delivered.size() >= 2) {
+                drained.countDown();
+            }
+            return null;
+        }).when(orderService).handleLogisticsEvents(anyList());
+
+        try (Producer<String, String> producer = producer()) {
+            producer.send(new ProducerRecord<>("LOGISTICS_EVENTS", "order-1", "{\"orderId\":\"order-1\",\"status\":\"SHIPPED\"}"));
+            producer.send(new ProducerRecord<>("LOGISTICS_EVENTS", "order-2", "not json"));
+            producer.send(new ProducerRecord<>("LOGISTICS_EVENTS", "order-3", "{\"orderId\":\"order-3\",\"status\":\"SHIPPED\"}"));
+        }
+
+        assertThat(drained.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(delivered).extracting(LogisticsEvent::getOrderId).containsExactlyInAnyOrder("order-1", "order-3");
+    }
+
+    private static ProducerRecord<String, String> paymentEvent(String orderId, String status) {
+        return new ProducerRecord<>("PAYMENT_EVENTS", orderId,
+                "{\"orderId\":\"" + orderId + "\",\"status\":\"" + status + "\"}");
+    }
+
+    private Producer<String, String> producer() {
+        return new DefaultKafkaProducerFactory<>(KafkaTestUtils.producerProps(broker),
+                new StringSerializer(), new StringSerializer()).createProducer();
+    }
+
+    @Configuration
+    @EnableKafka
+    @Import({KafkaConsumerConfig.class, ExecutorConfig.class, EventProcessingConfig.class, EventDeduplicator.class,
+            PaymentEventConsumer.class, LogisticsEventConsumer.class})
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.ecommerce.orderservice.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchRuntimeException;
+
+class KeyOrderedBatchProcessorTests {
+    private static final int LANES = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ExecutorService threads;
+    private ConcurrentTaskExecutor executor;
+
+    @BeforeEach
+    void start() {
+        threads = Executors.newFixedThreadPool(LANES);
+        executor = new ConcurrentTaskExecutor(threads);
+    }
+
+    @AfterEach
+    void stop() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    void keepsEventsOfOneKeyInOrder() {
+        KeyOrderedBatchProcessor processor = new KeyOrderedBatchProcessor("test", LANES, executor, meterRegistry);
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+
+        processor.process(batch(50, 40), Event::key, events -> events.forEach(event -> {
+            seen.computeIfAbsent(event.key(), ignored -> new ArrayList<>()).add(event.sequence());
+            sleep(Duration.ofMillis(1));
+        }));
+
+        assertThat(seen).hasSize(50);
+        seen.values().forEach(sequences -> assertThat(sequences).hasSize(40).isSorted());
+        assertThat(meterRegistry.get("order.events.in.flight").gauge().value()).isZero();
+    }
+
+    @Test
+    void throughputScalesWithLanes() {
+        List<Event> batch = batch(200, 4);
+
+        Duration oneLane = time(new KeyOrderedBatchProcessor("one", 1, executor, meterRegistry), batch);
+        Duration allLanes = time(new KeyOrderedBatchProcessor("all", LANES, executor, meterRegistry), batch);
+
+        assertThat(allLanes.multipliedBy(3)).isLessThan(oneLane);
+    }
+
+    @Test
+    void rethrowsLaneFailureOnlyAfterEveryLaneFinished() {
+        KeyOrderedBatchProcessor processor = new KeyOrderedBatchProcessor("test", LANES, executor, meterRegistry);
+        AtomicInteger handled = new AtomicInteger();
+
+        assertThatThrownBy(() -> processor.process(batch(64, 1), Event::key, events -> {
+            sleep(Duration.ofMillis(20));
+            handled.addAndGet(events.size());
+            if (events.stream().anyMatch(event -> event.key().equals("order-0"))) {
+                throw new IllegalStateException("boom");
+            }
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(handled).hasValue(64);
+    }
+
+    @Test
+    void reportsTheEarliestFailedEventAfterHandlingTheRestOfItsLane() {
+        KeyOrderedBatchProcessor processor = new KeyOrderedBatchProcessor("test", LANES, executor, meterRegistry);
+        List<Event> batch = batch(8, 4);
+        Event poison = new Event("order-3", 2);
+        Event earlierPoison = new Event("order-7", 0);
+        Set<Event> handled = ConcurrentHashMap.newKeySet();
+
+        RuntimeException failure = catchRuntimeException(() -> processor.process(batch, Event::key,
+                lane -> LaneFailure.handle(lane, events -> {
+                    if (events.contains(poison) || events.contains(earlierPoison)) {
+                        throw new IllegalStateException("poison");
+                    }
+                    handled.addAll(events);
+                })));
+
+        RuntimeException reported = LaneFailure.toBatchListenerFailure(failure, batch);
+        assertThat(reported).isInstanceOf(BatchListenerFailedException.class).hasRootCauseMessage("poison");
+        int index = ((BatchListenerFailedException) reported).getIndex();
+        assertThat(batch.get(index)).isEqualTo(earlierPoison);
+        // Everything the container commits, the records before the reported one, was handled.
+        assertThat(handled).containsAll(batch.subList(0, index));
+        assertThat(handled).doesNotContain(poison, earlierPoison);
+    }
+
+    private static Duration time(KeyOrderedBatchProcessor processor, List<Event> batch) {
+        long start = System.nanoTime();
+        processor.process(batch, Event::key, events -> sleep(Duration.ofMillis(2L * events.size())));
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    /**
+     * {@code keys} orders with {@code perKey} events each, interleaved the way a partition would deliver them.
+     */
+    private static List<Event> batch(int keys, int perKey) {
+        List<Event> batch = new ArrayList<>();
+        for (int sequence = 0; sequence < perKey; sequence++) {
+            for (int key = 0; key < keys; key++) {
+                batch.add(new Event("order-" + key, sequence));
+            }
+        }
+        return batch;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Event(String key, int sequence) {
+    }
+}
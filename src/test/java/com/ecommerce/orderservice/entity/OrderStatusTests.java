@@ -0,0 +1,40 @@
+package com.ecommerce.orderservice.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderStatusTests {
+
+    @Test
+    void followsTheOrderLifecycle() {
+        assertThat(OrderStatus.PENDING.canTransitionTo(OrderStatus.PLACED)).isTrue();
+        assertThat(OrderStatus.PLACED.canTransitionTo(OrderStatus.SHIPPED)).isTrue();
+        assertThat(OrderStatus.SHIPPED.canTransitionTo(OrderStatus.OUT_FOR_DELIVERY)).isTrue();
+        assertThat(OrderStatus.OUT_FOR_DELIVERY.canTransitionTo(OrderStatus.DELIVERED)).isTrue();
+        assertThat(OrderStatus.DELIVERED.canTransitionTo(OrderStatus.RETURNED)).isTrue();
+
+        assertThat(OrderStatus.PENDING.canTransitionTo(OrderStatus.SHIPPED)).isFalse();
+        assertThat(OrderStatus.SHIPPED.canTransitionTo(OrderStatus.CANCELLED)).isFalse();
+        assertThat(OrderStatus.PLACED.canTransitionTo(OrderStatus.PLACED)).isFalse();
+    }
+
+    @Test
+    void terminalStatusesGoNowhere() {
+        for (OrderStatus terminal : new OrderStatus[]{OrderStatus.CANCELLED, OrderStatus.FAILED, OrderStatus.RETURNED}) {
+            for (OrderStatus target : OrderStatus.values()) {
+                assertThat(terminal.canTransitionTo(target)).isFalse();
+            }
+        }
+    }
+
+    @Test
+    void sourcesMirrorTheTransitionTable() {
+        for (OrderStatus target : OrderStatus.values()) {
+            for (OrderStatus source : OrderStatus.values()) {
+                assertThat(target.sources().contains(source)).isEqualTo(source.canTransitionTo(target));
+            }
+        }
+        assertThat(OrderStatus.CANCELLED.sources()).containsExactlyInAnyOrder(OrderStatus.PENDING, OrderStatus.PLACED);
+    }
+}
@@ -0,0 +1,135 @@
+package com.ecommerce.orderservice.event.codec;
+
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.event.LogisticsEvent;
+import com.ecommerce.orderservice.event.OrderEvent;
+import com.ecommerce.orderservice.event.PaymentEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventCodecTests {
+    private static final String ORDER_ID = "652f1c3e9b1e8a4d2c7f0a11";
+
+    private final EventSerializer binary = new EventSerializer(EventSerializer.Format.BINARY);
+    private final EventSerializer json = new EventSerializer(EventSerializer.Format.JSON);
+
+    @Test
+    void roundTripsEveryEventInBothFormats() {
+        OrderEvent orderEvent = new OrderEvent();
+        orderEvent.setOrderId(ORDER_ID);
+        orderEvent.setStatus(OrderStatus.OUT_FOR_DELIVERY);
+        PaymentEvent paymentEvent = new PaymentEvent();
+        paymentEvent.setOrderId(ORDER_ID);
+        paymentEvent.setStatus(PaymentEvent.Status.PAYMENT_FAILED);
+        paymentEvent.setReason("card declined");
+        LogisticsEvent logisticsEvent = new LogisticsEvent();
+        logisticsEvent.setOrderId(ORDER_ID);
+        logisticsEvent.setStatus(LogisticsEvent.Status.DELIVERED);
+
+        for (EventSerializer serializer : new EventSerializer[]{binary, json}) {
+            assertThat(new EventDeserializer<>(EventSchemas.ORDER).deserialize("ORDER_EVENTS",
+                    serializer.serialize("ORDER_EVENTS", orderEvent))).isEqualTo(orderEvent);
+            assertThat(new EventDeserializer<>(EventSchemas.PAYMENT).deserialize("PAYMENT_EVENTS",
+                    serializer.serialize("PAYMENT_EVENTS", paymentEvent))).isEqualTo(paymentEvent);
+            assertThat(new EventDeserializer<>(EventSchemas.LOGISTICS).deserialize("LOGISTICS_EVENTS",
+                    serializer.serialize("LOGISTICS_EVENTS", logisticsEvent))).isEqualTo(logisticsEvent);
+        }
+    }
+
+    @Test
+    void binaryIsLessThanHalfTheSizeOfJson() {
+        OrderEvent event = new OrderEvent();
+        event.setOrderId(ORDER_ID);
+        event.setStatus(OrderStatus.OUT_FOR_DELIVERY);
+
+        byte[] binaryBytes = binary.serialize("ORDER_EVENTS", event);
+        assertThat(binaryBytes[0]).isEqualTo(EventSerializer.MAGIC);
+        assertThat(binaryBytes.length * 2).isLessThan(json.serialize("ORDER_EVENTS", event).length);
+    }
+
+    @Test
+    void readsJsonFromProducersNotYetMigrated() {
+        byte[] legacy = ("{\"orderId\":\"" + ORDER_ID + "\",\"status\":\"PAYMENT_RECEIVED\",\"extra\":1}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        PaymentEvent event = new EventDeserializer<>(EventSchemas.PAYMENT).deserialize("PAYMENT_EVENTS", legacy);
+
+        assertThat(event.getOrderId()).isEqualTo(ORDER_ID);
+        assertThat(event.getStatus()).isEqualTo(PaymentEvent.Status.PAYMENT_RECEIVED);
+        assertThat(event.getReason()).isEmpty();
+    }
+
+    @Test
+    void olderReaderSkipsFieldsAndCodesFromANewerWriter() {
+        BinaryEventWriter out = new BinaryEventWriter(16);
+        out.writeByte(EventSerializer.MAGIC);
+        out.writeByte(2);
+        out.writeString(1, ORDER_ID);
+        out.writeString(7, "a field added in version 2");
+        out.writeInt(2, 42);
+        out.writeInt(8, 5);
+
+        LogisticsEvent event = new EventDeserializer<>(EventSchemas.LOGISTICS).deserialize("LOGISTICS_EVENTS",
+                out.toByteArray());
+
+        assertThat(event.getOrderId()).isEqualTo(ORDER_ID);
+        assertThat(event.getStatus()).isNull();
+    }
+
+    @Test
+    void newerReaderDefaultsFieldsAnOlderWriterDidNotSend() {
+        BinaryEventWriter out = new BinaryEventWriter(16);
+        out.writeByte(EventSerializer.MAGIC);
+        out.writeByte(1);
+        out.writeString(1, ORDER_ID);
+
+        PaymentEvent event = new EventDeserializer<>(EventSchemas.PAYMENT).deserialize("PAYMENT_EVENTS",
+                out.toByteArray());
+
+        assertThat(event.getOrderId()).isEqualTo(ORDER_ID);
+        assertThat(event.getStatus()).isNull();
+        assertThat(event.getReason()).isEmpty();
+    }
+
+    @Test
+    void roundTripsEveryOrderStatus() {
+        for (OrderStatus status : OrderStatus.values()) {
+            OrderEvent event = new OrderEvent();
+            event.setOrderId(ORDER_ID);
+            event.setStatus(status);
+
+            assertThat(new EventDeserializer<>(EventSchemas.ORDER).deserialize("ORDER_EVENTS",
+                    binary.serialize("ORDER_EVENTS", event)).getStatus()).isEqualTo(status);
+        }
+    }
+
+    @Test
+    void refusesToWriteAValueWithoutAWireCode() {
+        // A table that has not caught up with its enum must not send the value as code 0, which reads as PENDING.
+        EventSchemas.EnumCodes<OrderStatus> codes = new EventSchemas.EnumCodes<>(
+                List.of(OrderStatus.PENDING, OrderStatus.PLACED));
+        BinaryEventWriter out = new BinaryEventWriter(16);
+
+        codes.write(2, OrderStatus.PLACED, out);
+        assertThatThrownBy(() -> codes.write(2, OrderStatus.ACCEPTED, out))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("ACCEPTED");
+    }
+
+    @Test
+    void rejectsTruncatedRecords() {
+        OrderEvent event = new OrderEvent();
+        event.setOrderId(ORDER_ID);
+        byte[] encoded = binary.serialize("ORDER_EVENTS", event);
+
+        assertThatThrownBy(() -> new EventDeserializer<>(EventSchemas.ORDER).deserialize("ORDER_EVENTS",
+                Arrays.copyOf(encoded, encoded.length - 5))).isInstanceOf(SerializationException.class);
+    }
+}
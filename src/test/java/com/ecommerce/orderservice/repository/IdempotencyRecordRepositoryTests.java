@@ -0,0 +1,101 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent claims of one Idempotency-Key against the collection itself. Needs a real Mongo: set
+ * ORDER_TEST_MONGO_URI to run it.
+ */
+@EnabledIfEnvironmentVariable(named = "ORDER_TEST_MONGO_URI", matches = ".+")
+class IdempotencyRecordRepositoryTests {
+    private static final String KEY = "user-1:key-1";
+    private static final String FINGERPRINT = "fingerprint-1";
+
+    private final ExecutorService replicas = Executors.newFixedThreadPool(2);
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private IdempotencyRecordRepositoryImpl replicaA;
+    private IdempotencyRecordRepositoryImpl replicaB;
+
+    @BeforeEach
+    void connect() {
+        client = MongoClients.create(System.getenv("ORDER_TEST_MONGO_URI"));
+        mongoTemplate = new MongoTemplate(client, "order_service_idempotency_test");
+        replicaA = new IdempotencyRecordRepositoryImpl(mongoTemplate);
+        replicaB = new IdempotencyRecordRepositoryImpl(mongoTemplate);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        replicas.shutdownNow();
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void concurrentClaimsOfANewKeyHaveOneWinner() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            String key = KEY + ":" + round;
+            assertThat(claimConcurrently(key, Duration.ofMinutes(2))).containsExactlyInAnyOrder(true, false);
+        }
+    }
+
+    @Test
+    void concurrentTakeOversOfAnExpiredLockHaveOneWinner() throws Exception {
+        assertThat(replicaA.tryLock(KEY, FINGERPRINT, Duration.ofMillis(1))).isTrue();
+        Thread.sleep(10);
+
+        assertThat(claimConcurrently(KEY, Duration.ofMinutes(2))).containsExactlyInAnyOrder(true, false);
+        // The new lock is live, so neither replica takes it again.
+        assertThat(replicaA.tryLock(KEY, FINGERPRINT, Duration.ofMinutes(2))).isFalse();
+        assertThat(replicaB.tryLock(KEY, FINGERPRINT, Duration.ofMinutes(2))).isFalse();
+    }
+
+    @Test
+    void completedOrForeignRecordsAreNeverTakenOver() throws Exception {
+        assertThat(replicaA.tryLock(KEY, FINGERPRINT, Duration.ofMillis(1))).isTrue();
+        Thread.sleep(10);
+        // A different request under the same key does not inherit the expired lock.
+        assertThat(replicaB.tryLock(KEY, "fingerprint-2", Duration.ofMinutes(2))).isFalse();
+
+        replicaA.complete(KEY, 201, new Order());
+        assertThat(replicaB.tryLock(KEY, FINGERPRINT, Duration.ofMinutes(2))).isFalse();
+        replicaB.unlock(KEY);
+        assertThat(mongoTemplate.getCollection("idempotency_keys").countDocuments()).isEqualTo(1);
+    }
+
+    private List<Boolean> claimConcurrently(String key, Duration lockTtl) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> claims = new ArrayList<>();
+        for (IdempotencyRecordRepositoryImpl replica : List.of(replicaA, replicaB)) {
+            claims.add(replicas.submit(() -> {
+                start.await();
+                return replica.tryLock(key, FINGERPRINT, lockTtl);
+            }));
+        }
+        start.countDown();
+        List<Boolean> results = new ArrayList<>();
+        for (Future<Boolean> claim : claims) {
+            results.add(claim.get(10, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,182 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.dto.OrderSummary;
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Keyset paging of a user's history where many orders share a {@code createdAt}, and the plans of the indexed
+ * queries. Needs a real Mongo: set ORDER_TEST_MONGO_URI to run it.
+ */
+@EnabledIfEnvironmentVariable(named = "ORDER_TEST_MONGO_URI", matches = ".+")
+class OrderHistoryPagingTests {
+    private static final String USER = "user-1";
+    private static final int TIMESTAMPS = 7;
+    private static final int ORDERS_PER_TIMESTAMP = 30;
+    private static final int PAGE_SIZE = 20;
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private OrderRepositoryImpl repository;
+    private final List<Order> seeded = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        client = MongoClients.create(System.getenv("ORDER_TEST_MONGO_URI"));
+        mongoTemplate = new MongoTemplate(client, "order_service_history_test");
+        IndexOperations indexes = mongoTemplate.indexOps(Order.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Order.class)
+                .forEach(indexes::createIndex);
+        repository = new OrderRepositoryImpl(mongoTemplate);
+
+        // Bursts of orders in the same second, as bulk or retried checkouts produce; page boundaries fall inside them.
+        LocalDateTime base = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        for (int t = 0; t < TIMESTAMPS; t++) {
+            LocalDateTime createdAt = base.plusMinutes(t);
+            for (int i = 0; i < ORDERS_PER_TIMESTAMP; i++) {
+                seeded.add(order(USER, createdAt, i % 2 == 0 ? OrderStatus.PENDING : OrderStatus.PLACED));
+                seeded.add(order("user-2", createdAt, OrderStatus.DELIVERED));
+            }
+        }
+        mongoTemplate.insert(seeded, Order.class);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void keysetPagesVisitEveryOrderOnceAcrossEqualTimestamps() {
+        List<String> expected = seeded.stream()
+                .filter(order -> USER.equals(order.getUserId()))
+                .sorted(Comparator.comparing(Order::getCreatedAt).thenComparing(Order::getId).reversed())
+                .map(Order::getId)
+                .toList();
+
+        List<String> visited = new ArrayList<>();
+        HistoryCursor cursor = null;
+        List<OrderSummary> page;
+        do {
+            page = repository.findHistoryPage(USER, cursor, PAGE_SIZE, false);
+            page.forEach(order -> visited.add(order.getId()));
+            if (!page.isEmpty()) {
+                OrderSummary last = page.get(page.size() - 1);
+                cursor = new HistoryCursor(last.getCreatedAt(), last.getId());
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        assertThat(visited).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void historyPageIsServedByTheHistoryIndexWithoutASort() {
+        Order middle = seeded.stream().filter(order -> USER.equals(order.getUserId())).toList().get(95);
+        Document filter = new Document("userId", USER).append("$or", List.of(
+                new Document("createdAt", new Document("$lt", middle.getCreatedAt())),
+                new Document("createdAt", middle.getCreatedAt())
+                        .append("_id", new Document("$lt", new ObjectId(middle.getId())))));
+        Document sort = new Document("createdAt", -1).append("_id", -1);
+
+        Document explain = explain(filter, sort, PAGE_SIZE);
+
+        assertThat(stages(explain)).doesNotContain("COLLSCAN", "SORT");
+        assertThat(indexes(explain)).containsOnly("user_created_idx");
+        // A page reads its own neighbourhood of the index, never the rest of the user's history.
+        assertThat(docsExamined(explain)).isLessThanOrEqualTo(2 * PAGE_SIZE);
+    }
+
+    @Test
+    void statusQueriesAreServedByTheirIndexes() {
+        LocalDateTime cutoff = LocalDateTime.now();
+
+        Document byStatus = explain(new Document("status", OrderStatus.PENDING.name())
+                .append("createdAt", new Document("$lt", cutoff)), new Document("createdAt", 1), 50);
+        assertThat(stages(byStatus)).doesNotContain("COLLSCAN", "SORT");
+        assertThat(indexes(byStatus)).containsOnly("status_created_idx");
+
+        Document expired = explain(new Document("status", OrderStatus.PENDING.name())
+                .append("paymentMethod", Order.PaymentMethod.ONLINE.name())
+                .append("createdAt", new Document("$lt", cutoff)), new Document("createdAt", 1), 50);
+        assertThat(stages(expired)).doesNotContain("COLLSCAN", "SORT");
+        assertThat(indexes(expired)).containsOnly("status_payment_created_idx");
+    }
+
+    private Document explain(Document filter, Document sort, int limit) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class))
+                .find(filter)
+                .sort(sort)
+                .limit(limit)
+                .explain(ExplainVerbosity.EXECUTION_STATS);
+    }
+
+    private static long docsExamined(Document explain) {
+        return ((Number) explain.get("executionStats", Document.class).get("totalDocsExamined")).longValue();
+    }
+
+    private static List<String> stages(Document explain) {
+        List<String> stages = new ArrayList<>();
+        collect(winningPlan(explain), "stage", stages);
+        return stages;
+    }
+
+    private static List<String> indexes(Document explain) {
+        List<String> indexes = new ArrayList<>();
+        collect(winningPlan(explain), "indexName", indexes);
+        return indexes;
+    }
+
+    private static Document winningPlan(Document explain) {
+        Document plan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        // Servers with the slot-based engine nest the classic plan one level down.
+        return plan.containsKey("queryPlan") ? plan.get("queryPlan", Document.class) : plan;
+    }
+
+    private static void collect(Object node, String key, List<String> values) {
+        if (node instanceof Document document) {
+            if (document.get(key) instanceof String value) {
+                values.add(value);
+            }
+            document.values().forEach(child -> collect(child, key, values));
+        } else if (node instanceof List<?> list) {
+            list.forEach(child -> collect(child, key, values));
+        }
+    }
+
+    private static Order order(String userId, LocalDateTime createdAt, OrderStatus status) {
+        Order order = new Order();
+        // Orders created in the same second share createdAt and differ only in the rest of the id.
+        order.setId(new ObjectId(Date.from(createdAt.atZone(ZoneId.systemDefault()).toInstant())).toHexString());
+        order.setUserId(userId);
+        order.setPaymentMethod(Order.PaymentMethod.ONLINE);
+        order.setTotalAmount(BigDecimal.TEN);
+        order.setCreatedAt(createdAt);
+        order.setStatus(status);
+        return order;
+    }
+}
@@ -0,0 +1,146 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fires conflicting transitions at one order. Needs a real Mongo: set ORDER_TEST_MONGO_URI to run it.
+ */
+@Slf4j
+@EnabledIfEnvironmentVariable(named = "ORDER_TEST_MONGO_URI", matches = ".+")
+class OrderTransitionConcurrencyTests {
+    private static final int CONTENDERS = 32;
+    private static final int ROUNDS = 50;
+    private static final List<OrderStatus> TARGETS = List.of(OrderStatus.CANCELLED, OrderStatus.FAILED, OrderStatus.PLACED);
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private OrderRepositoryImpl repository;
+
+    @BeforeEach
+    void connect() {
+        client = MongoClients.create(System.getenv("ORDER_TEST_MONGO_URI"));
+        mongoTemplate = new MongoTemplate(client, "order_service_transition_test");
+        repository = new OrderRepositoryImpl(mongoTemplate);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void exactlyOneConflictingTransitionWins() throws Exception {
+        AtomicLong casNanos = new AtomicLong();
+        for (int round = 0; round < ROUNDS; round++) {
+            String orderId = pendingOrder();
+            AtomicInteger winners = new AtomicInteger();
+            race(contender -> {
+                long start = System.nanoTime();
+                if (repository.transition(orderId, null, Set.of(OrderStatus.PENDING), TARGETS.get(contender % TARGETS.size()), null)
+                        .isPresent()) {
+                    winners.incrementAndGet();
+                }
+                casNanos.addAndGet(System.nanoTime() - start);
+            });
+            assertThat(winners).hasValue(1);
+            assertThat(mongoTemplate.findById(orderId, Order.class).getVersion()).isEqualTo(1);
+        }
+
+        AtomicLong loadSaveNanos = new AtomicLong();
+        AtomicInteger loadSaveWinners = new AtomicInteger();
+        for (int round = 0; round < ROUNDS; round++) {
+            String orderId = pendingOrder();
+            race(contender -> {
+                long start = System.nanoTime();
+                Order order = mongoTemplate.findById(orderId, Order.class);
+                if (order.getStatus() == OrderStatus.PENDING) {
+                    order.setStatus(TARGETS.get(contender % TARGETS.size()));
+                    mongoTemplate.save(order);
+                    loadSaveWinners.incrementAndGet();
+                }
+                loadSaveNanos.addAndGet(System.nanoTime() - start);
+            });
+        }
+
+        long events = (long) ROUNDS * CONTENDERS;
+        log.info("Compare-and-set: {} µs/event; load-check-save: {} µs/event with {} winners over {} rounds",
+                casNanos.get() / events / 1000, loadSaveNanos.get() / events / 1000, loadSaveWinners.get(), ROUNDS);
+        assertThat(casNanos.get()).isLessThan(loadSaveNanos.get());
+    }
+
+    @Test
+    void onlyTheLatestReservationAttemptCompletesAnAcceptedOrder() {
+        Order order = mongoTemplate.findById(pendingOrder(), Order.class);
+        order.setStatus(OrderStatus.ACCEPTED);
+        String orderId = mongoTemplate.save(order).getId();
+
+        int first = repository.startReservationAttempt(orderId).orElseThrow().getReservationAttempt();
+        int second = repository.startReservationAttempt(orderId).orElseThrow().getReservationAttempt();
+        assertThat(second).isEqualTo(first + 1);
+
+        assertThat(repository.completeAcceptance(orderId, first, new BigDecimal("42.00"), OrderStatus.PLACED)).isEmpty();
+        Order placed = repository.completeAcceptance(orderId, second, new BigDecimal("42.00"), OrderStatus.PLACED)
+                .orElseThrow();
+        assertThat(placed.getStatus()).isEqualTo(OrderStatus.PLACED);
+        assertThat(placed.getReservationAttempt()).isEqualTo(second);
+        assertThat(repository.startReservationAttempt(orderId)).isEmpty();
+    }
+
+    private String pendingOrder() {
+        Order order = new Order();
+        order.setUserId("user-1");
+        order.setItems(List.of(item(1L, 2), item(2L, 1)));
+        order.setTotalAmount(new BigDecimal("42.00"));
+        order.setPaymentMethod(Order.PaymentMethod.ONLINE);
+        return mongoTemplate.insert(order).getId();
+    }
+
+    private static Order.OrderItem item(Long productId, int quantity) {
+        Order.OrderItem item = new Order.OrderItem();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static void race(IntConsumer task) throws InterruptedException {
+        ExecutorService threads = Executors.newFixedThreadPool(CONTENDERS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int contender = 0; contender < CONTENDERS; contender++) {
+            int id = contender;
+            threads.execute(() -> {
+                try {
+                    start.await();
+                    task.accept(id);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        threads.shutdown();
+        assertThat(threads.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,103 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.ProcessedEvent;
+import com.ecommerce.orderservice.repository.ProcessedEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EventDeduplicatorTests {
+    private static final String TOPIC = "PAYMENT_EVENTS";
+    private static final Function<String, String> IDENTITY = Function.identity();
+
+    private final Map<String, ProcessedEvent> store = new ConcurrentHashMap<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ProcessedEventRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ProcessedEventRepository.class);
+        when(repository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Iterable<String> ids = invocation.getArgument(0);
+            List<ProcessedEvent> found = new ArrayList<>();
+            ids.forEach(id -> {
+                if (store.containsKey(id)) {
+                    found.add(store.get(id));
+                }
+            });
+            return found;
+        });
+        doAnswer(invocation -> {
+            List<ProcessedEvent> events = invocation.getArgument(0);
+            events.forEach(event -> store.putIfAbsent(event.getId(), event));
+            return null;
+        }).when(repository).insertIgnoringDuplicates(anyList());
+    }
+
+    @Test
+    void dropsRepeatsWithinABatch() {
+        EventDeduplicator deduplicator = deduplicator();
+
+        assertThat(deduplicator.filterNew(TOPIC, List.of("o1:PAID", "o2:PAID", "o1:PAID"), IDENTITY))
+                .containsExactly("o1:PAID", "o2:PAID");
+    }
+
+    @Test
+    void replayedTopicReachesTheServiceOnce() {
+        EventDeduplicator deduplicator = deduplicator();
+        List<String> topic = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            topic.add("order-" + i + ":PAYMENT_RECEIVED");
+        }
+
+        List<String> handled = new ArrayList<>();
+        for (int pass = 0; pass < 2; pass++) {
+            for (int from = 0; from < topic.size(); from += 100) {
+                List<String> fresh = deduplicator.filterNew(TOPIC, topic.subList(from, from + 100), IDENTITY);
+                handled.addAll(fresh);
+                deduplicator.markProcessed(TOPIC, fresh, IDENTITY);
+            }
+        }
+
+        assertThat(handled).hasSize(1000).doesNotHaveDuplicates();
+        assertThat(meterRegistry.get("order.dedup.duplicates").tag("tier", "memory").counter().count()).isEqualTo(1000);
+    }
+
+    @Test
+    void remembersHandledEventsAcrossRestartsThroughTheStore() {
+        EventDeduplicator beforeRestart = deduplicator();
+        beforeRestart.markProcessed(TOPIC, List.of("o1:PAYMENT_FAILED"), IDENTITY);
+
+        EventDeduplicator afterRestart = deduplicator();
+
+        assertThat(afterRestart.filterNew(TOPIC, List.of("o1:PAYMENT_FAILED", "o2:PAYMENT_FAILED"), IDENTITY))
+                .containsExactly("o2:PAYMENT_FAILED");
+        assertThat(meterRegistry.get("order.dedup.duplicates").tag("tier", "store").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void letsEventsThroughAgainWhenHandlingFailedBeforeTheyWereMarked() {
+        EventDeduplicator deduplicator = deduplicator();
+
+        assertThat(deduplicator.filterNew(TOPIC, List.of("o1:SHIPPED"), IDENTITY)).hasSize(1);
+        assertThat(deduplicator.filterNew(TOPIC, List.of("o1:SHIPPED"), IDENTITY)).hasSize(1);
+    }
+
+    private EventDeduplicator deduplicator() {
+        return new EventDeduplicator(repository, meterRegistry, 10_000, Duration.ofHours(1));
+    }
+}
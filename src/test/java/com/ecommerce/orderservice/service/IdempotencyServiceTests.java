@@ -0,0 +1,159 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.dto.PlacementResult;
+import com.ecommerce.orderservice.entity.IdempotencyRecord;
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.exception.IdempotencyKeyReusedException;
+import com.ecommerce.orderservice.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The repository is backed by a map with the collection's semantics (insert fails on an existing key), and two
+ * service instances share it to stand in for two replicas.
+ */
+class IdempotencyServiceTests {
+    private static final int DUPLICATES = 100;
+
+    private final Map<String, IdempotencyRecord> store = new ConcurrentHashMap<>();
+    private final IdempotencyRecordRepository repository = inMemoryRepository();
+    private final AtomicInteger placements = new AtomicInteger();
+
+    @Test
+    void parallelDuplicatesPlaceTheOrderOnceAndShareItsResponse() throws Exception {
+        IdempotencyService replicaA = service();
+        IdempotencyService replicaB = service();
+        Order request = newOrder();
+        String fingerprint = IdempotencyService.fingerprint(request);
+
+        ExecutorService clients = Executors.newFixedThreadPool(DUPLICATES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PlacementResult>> responses = new ArrayList<>();
+        for (int i = 0; i < DUPLICATES; i++) {
+            IdempotencyService replica = i % 2 == 0 ? replicaA : replicaB;
+            responses.add(clients.submit(() -> {
+                start.await();
+                return replica.execute("user-1", "key-1", fingerprint, this::place);
+            }));
+        }
+        start.countDown();
+
+        List<PlacementResult> results = new ArrayList<>();
+        for (Future<PlacementResult> response : responses) {
+            results.add(response.get(30, TimeUnit.SECONDS));
+        }
+        clients.shutdown();
+
+        assertThat(placements).hasValue(1);
+        assertThat(results).extracting(result -> result.getOrder().getId()).containsOnly(results.get(0).getOrder().getId());
+        assertThat(results).extracting(PlacementResult::getStatus).containsOnly(201);
+        assertThat(results).filteredOn(PlacementResult::isReplayed).hasSize(DUPLICATES - 1);
+        assertThat(store.get("user-1:key-1").isCompleted()).isTrue();
+    }
+
+    @Test
+    void rejectsTheKeyForADifferentOrderAndRunsAgainAfterAFailure() {
+        IdempotencyService service = service();
+        Order request = newOrder();
+        String fingerprint = IdempotencyService.fingerprint(request);
+
+        Supplier<PlacementResult> failing = () -> {
+            throw new IllegalStateException("payment service down");
+        };
+        assertThatThrownBy(() -> service.execute("user-1", "key-2", fingerprint, failing))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(store).doesNotContainKey("user-1:key-2");
+
+        assertThat(service.execute("user-1", "key-2", fingerprint, this::place).isReplayed()).isFalse();
+        Order other = newOrder();
+        other.getItems().get(0).setQuantity(5);
+        assertThatThrownBy(() -> service.execute("user-1", "key-2", IdempotencyService.fingerprint(other), this::place))
+                .isInstanceOf(IdempotencyKeyReusedException.class)
+                .hasMessageContaining("different order");
+        assertThat(placements).hasValue(1);
+    }
+
+    private PlacementResult place() {
+        placements.incrementAndGet();
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Order order = newOrder();
+        order.setId(new ObjectId().toHexString());
+        order.setStatus(OrderStatus.PENDING);
+        return new PlacementResult(201, order, false);
+    }
+
+    private IdempotencyService service() {
+        return new IdempotencyService(repository, new SimpleMeterRegistry(), 1000, Duration.ofMinutes(10),
+                Duration.ofMinutes(2), Duration.ofSeconds(10));
+    }
+
+    private IdempotencyRecordRepository inMemoryRepository() {
+        IdempotencyRecordRepository repository = mock(IdempotencyRecordRepository.class);
+        when(repository.tryLock(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            IdempotencyRecord record = new IdempotencyRecord();
+            record.setId(invocation.getArgument(0));
+            record.setFingerprint(invocation.getArgument(1));
+            record.setLockedUntil(Instant.now().plus(invocation.<Duration>getArgument(2)));
+            return store.putIfAbsent(record.getId(), record) == null;
+        });
+        when(repository.findById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(store.get(invocation.<String>getArgument(0))));
+        doAnswer(invocation -> {
+            store.computeIfPresent(invocation.getArgument(0), (id, record) -> {
+                IdempotencyRecord done = new IdempotencyRecord();
+                done.setId(id);
+                done.setFingerprint(record.getFingerprint());
+                done.setCompleted(true);
+                done.setResponseStatus(invocation.getArgument(1));
+                done.setResponse(invocation.getArgument(2));
+                return done;
+            });
+            return null;
+        }).when(repository).complete(anyString(), anyInt(), any());
+        doAnswer(invocation -> {
+            store.computeIfPresent(invocation.getArgument(0), (id, record) -> record.isCompleted() ? record : null);
+            return null;
+        }).when(repository).unlock(anyString());
+        return repository;
+    }
+
+    private static Order newOrder() {
+        Order.OrderItem item = new Order.OrderItem();
+        item.setProductId(1L);
+        item.setQuantity(2);
+        Order order = new Order();
+        order.setItems(new ArrayList<>(List.of(item)));
+        order.setPaymentMethod(Order.PaymentMethod.ONLINE);
+        return order;
+    }
+}
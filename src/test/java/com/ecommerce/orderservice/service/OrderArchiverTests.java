@@ -0,0 +1,183 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.dto.OrderSummary;
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.repository.HistoryCursor;
+import com.ecommerce.orderservice.repository.OrderRepository;
+import com.ecommerce.orderservice.repository.OrderRepositoryImpl;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Seeds users whose order histories are mostly old, finished orders and measures the active-path queries before
+ * and after archiving them. Needs a real Mongo: set ORDER_TEST_MONGO_URI to run it.
+ */
+@Slf4j
+@EnabledIfEnvironmentVariable(named = "ORDER_TEST_MONGO_URI", matches = ".+")
+class OrderArchiverTests {
+    private static final int USERS = 20;
+    private static final int ORDERS_PER_USER = 1_000;
+    private static final int ACTIVE_PER_USER = 150;
+    private static final int QUERIES = 200;
+    private static final List<OrderStatus> FINAL =
+            List.of(OrderStatus.CANCELLED, OrderStatus.RETURNED, OrderStatus.FAILED);
+    private static final List<OrderStatus> ACTIVE =
+            List.of(OrderStatus.PENDING, OrderStatus.PLACED, OrderStatus.SHIPPED);
+
+    private final Random random = new Random(7);
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private OrderRepository orderRepository;
+    private OrderDetailsCache orderDetailsCache;
+    private ShardLeaseService leases;
+
+    @BeforeEach
+    void connect() {
+        client = MongoClients.create(System.getenv("ORDER_TEST_MONGO_URI"));
+        mongoTemplate = new MongoTemplate(client, "order_service_archive_test");
+        IndexOperations indexes = mongoTemplate.indexOps(Order.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Order.class)
+                .forEach(indexes::createIndex);
+        orderRepository = new MongoRepositoryFactory(mongoTemplate)
+                .getRepository(OrderRepository.class, RepositoryFragments.just(new OrderRepositoryImpl(mongoTemplate)));
+        leases = new ShardLeaseService(mongoTemplate);
+        orderDetailsCache = new OrderDetailsCache(orderRepository, new SimpleMeterRegistry(), 1_000,
+                Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void archivingKeepsHistoryAndShrinksTheActivePath() {
+        List<Order> seeded = new ArrayList<>();
+        for (int user = 0; user < USERS; user++) {
+            for (int i = 0; i < ORDERS_PER_USER; i++) {
+                seeded.add(order("user-" + user, i < ACTIVE_PER_USER));
+            }
+        }
+        // Old but still returnable.
+        Order delivered = order("user-3", false);
+        delivered.setStatus(OrderStatus.DELIVERED);
+        seeded.add(delivered);
+        mongoTemplate.insert(seeded, Order.class);
+        List<String> historyBefore = history("user-3");
+        Latency before = measure();
+
+        // Another replica holds the lease: nothing moves.
+        ShardLeaseService otherReplica = new ShardLeaseService(mongoTemplate);
+        assertThat(otherReplica.tryAcquire("order-archive", Duration.ofMinutes(1))).isTrue();
+        assertThat(archiver(1_000).archive()).isZero();
+        mongoTemplate.getCollection("sweeper_leases").drop();
+
+        // Cut short after two batches, then resumed, as after a crash or a lost lease.
+        OrderArchiver interrupted = archiver(2);
+        assertThat(interrupted.archive()).isEqualTo(2 * 1_000);
+        assertThat(archiver(1_000).archive()).isEqualTo((long) USERS * (ORDERS_PER_USER - ACTIVE_PER_USER) - 2_000);
+        Latency after = measure();
+        log.info("Before archival: findByUserId {} µs, findByStatus {} µs, history page {} µs",
+                before.byUserMicros, before.byStatusMicros, before.historyMicros);
+        log.info("After archival:  findByUserId {} µs, findByStatus {} µs, history page {} µs",
+                after.byUserMicros, after.byStatusMicros, after.historyMicros);
+
+        assertThat(orderRepository.count()).isEqualTo((long) USERS * ACTIVE_PER_USER + 1);
+        assertThat(orderRepository.findByUserId("user-3")).hasSize(ACTIVE_PER_USER + 1);
+        assertThat(orderRepository.findById(delivered.getId())).isPresent();
+        assertThat(history("user-3")).isEqualTo(historyBefore);
+        Order archived = seeded.get(3 * ORDERS_PER_USER + ORDERS_PER_USER - 1);
+        assertThat(orderDetailsCache.find(archived.getId(), "user-3")).get()
+                .extracting(Order::getStatus).isEqualTo(archived.getStatus());
+        assertThat(after.byUserMicros).isLessThan(before.byUserMicros);
+    }
+
+    private OrderArchiver archiver(int maxBatches) {
+        return new OrderArchiver(orderRepository, leases, new SimpleMeterRegistry(),
+                Duration.ofDays(90), 1_000, maxBatches, Duration.ofMinutes(1));
+    }
+
+    private List<String> history(String userId) {
+        List<String> ids = new ArrayList<>();
+        HistoryCursor cursor = null;
+        List<OrderSummary> page;
+        do {
+            page = orderRepository.findHistoryPage(userId, cursor, 100, false);
+            page.forEach(order -> ids.add(order.getId()));
+            if (!page.isEmpty()) {
+                OrderSummary last = page.get(page.size() - 1);
+                cursor = new HistoryCursor(last.getCreatedAt(), last.getId());
+            }
+        } while (page.size() == 100);
+        return ids;
+    }
+
+    private Latency measure() {
+        return new Latency(
+                averageMicros(() -> orderRepository.findByUserId("user-" + random.nextInt(USERS))),
+                averageMicros(() -> orderRepository.findByStatus(OrderStatus.PENDING)),
+                averageMicros(() -> orderRepository.findHistoryPage("user-" + random.nextInt(USERS), null, 20, false)));
+    }
+
+    private static long averageMicros(Supplier<List<?>> query) {
+        for (int i = 0; i < QUERIES / 10; i++) {
+            query.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            query.get();
+        }
+        return (System.nanoTime() - start) / QUERIES / 1000;
+    }
+
+    private Order order(String userId, boolean active) {
+        LocalDateTime createdAt = active
+                ? LocalDateTime.now().minusMinutes(random.nextInt(30 * 24 * 60))
+                : LocalDateTime.now().minusDays(100 + random.nextInt(300));
+        createdAt = createdAt.truncatedTo(ChronoUnit.SECONDS);
+        Order.OrderItem item = new Order.OrderItem();
+        item.setProductId((long) random.nextInt(500));
+        item.setQuantity(1 + random.nextInt(3));
+        Order order = new Order();
+        order.setId(new ObjectId(Date.from(createdAt.atZone(ZoneId.systemDefault()).toInstant())).toHexString());
+        order.setUserId(userId);
+        order.setItems(List.of(item));
+        order.setTotalAmount(BigDecimal.valueOf(100 + random.nextInt(100_000), 2));
+        order.setPaymentMethod(Order.PaymentMethod.ONLINE);
+        order.setCreatedAt(createdAt);
+        List<OrderStatus> statuses = active ? ACTIVE : FINAL;
+        order.setStatus(statuses.get(random.nextInt(statuses.size())));
+        return order;
+    }
+
+    private record Latency(long byUserMicros, long byStatusMicros, long historyMicros) {
+    }
+}
@@ -0,0 +1,143 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Slf4j
+class OrderDetailsCacheTests {
+    private static final Duration MONGO_ROUND_TRIP = Duration.ofMillis(2);
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderDetailsCache cache = new OrderDetailsCache(orderRepository, new SimpleMeterRegistry(),
+            10_000, Duration.ofSeconds(30));
+
+    @Test
+    void servesOnlyTheOwnerAndReloadsAfterInvalidation() {
+        Order order = order("user-1");
+        when(orderRepository.findById(order.getId())).thenReturn(Optional.of(order));
+        when(orderRepository.findById("missing")).thenReturn(Optional.empty());
+
+        assertThat(cache.find(order.getId(), "user-1")).contains(order);
+        assertThat(cache.find(order.getId(), "user-2")).isEmpty();
+        verify(orderRepository, times(1)).findById(order.getId());
+
+        cache.invalidate(order.getId());
+        assertThat(cache.find(order.getId(), "user-1")).contains(order);
+        verify(orderRepository, times(2)).findById(order.getId());
+
+        assertThat(cache.find("missing", "user-1")).isEmpty();
+        assertThat(cache.find("missing", "user-1")).isEmpty();
+        verify(orderRepository, times(2)).findById("missing");
+    }
+
+    /**
+     * Sixteen clients poll 200 in-transit orders for a second while a status change hits one of them every 10 ms,
+     * with a simulated Mongo round trip, first straight against the repository and then through the cache.
+     */
+    @Test
+    void pollingHotOrdersThroughTheCacheCutsMongoReads() throws Exception {
+        List<Order> hot = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            hot.add(order("user-" + i));
+        }
+        AtomicLong mongoReads = new AtomicLong();
+        when(orderRepository.findById(anyString())).thenAnswer(invocation -> {
+            mongoReads.incrementAndGet();
+            Thread.sleep(MONGO_ROUND_TRIP.toMillis());
+            String id = invocation.getArgument(0);
+            return hot.stream().filter(order -> order.getId().equals(id)).findFirst();
+        });
+
+        Poll uncached = poll(hot, mongoReads, order ->
+                orderRepository.findById(order.getId()).filter(found -> found.getUserId().equals(order.getUserId())));
+        Poll cached = poll(hot, mongoReads, order -> cache.find(order.getId(), order.getUserId()));
+        log.info("Without cache: {} polls/s, p50 {} µs, p99 {} µs, {} Mongo reads/s",
+                uncached.pollsPerSecond, uncached.p50Micros, uncached.p99Micros, uncached.mongoReadsPerSecond);
+        log.info("With cache:    {} polls/s, p50 {} µs, p99 {} µs, {} Mongo reads/s",
+                cached.pollsPerSecond, cached.p50Micros, cached.p99Micros, cached.mongoReadsPerSecond);
+
+        assertThat(cached.mongoReadsPerSecond).isLessThan(uncached.mongoReadsPerSecond / 10);
+        assertThat(cached.p50Micros).isLessThan(MONGO_ROUND_TRIP.toNanos() / 1000);
+    }
+
+    private Poll poll(List<Order> hot, AtomicLong mongoReads, Function<Order, Optional<Order>> read) throws Exception {
+        int clients = 16;
+        long durationNanos = Duration.ofSeconds(1).toNanos();
+        long readsBefore = mongoReads.get();
+        ExecutorService pool = Executors.newFixedThreadPool(clients + 1);
+        long start = System.nanoTime();
+        Future<?> changes = pool.submit(() -> {
+            while (System.nanoTime() - start < durationNanos) {
+                cache.invalidate(hot.get(ThreadLocalRandom.current().nextInt(hot.size())).getId());
+                Thread.sleep(10);
+            }
+            return null;
+        });
+        List<Future<List<Long>>> results = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            results.add(pool.submit(() -> {
+                List<Long> latencies = new ArrayList<>();
+                while (System.nanoTime() - start < durationNanos) {
+                    Order order = hot.get(ThreadLocalRandom.current().nextInt(hot.size()));
+                    long pollStart = System.nanoTime();
+                    assertThat(read.apply(order)).isPresent();
+                    latencies.add(System.nanoTime() - pollStart);
+                }
+                return latencies;
+            }));
+        }
+        List<Long> all = new ArrayList<>();
+        for (Future<List<Long>> result : results) {
+            all.addAll(result.get(30, TimeUnit.SECONDS));
+        }
+        changes.get(30, TimeUnit.SECONDS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        long[] sorted = all.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return new Poll((long) (sorted.length / seconds), sorted[sorted.length / 2] / 1000,
+                sorted[(int) (sorted.length * 0.99)] / 1000, (long) ((mongoReads.get() - readsBefore) / seconds));
+    }
+
+    private record Poll(long pollsPerSecond, long p50Micros, long p99Micros, long mongoReadsPerSecond) {
+    }
+
+    private static Order order(String userId) {
+        Order.OrderItem item = new Order.OrderItem();
+        item.setProductId(1L);
+        item.setQuantity(1);
+        Order order = new Order();
+        order.setId(new ObjectId().toHexString());
+        order.setUserId(userId);
+        order.setItems(List.of(item));
+        order.setPaymentMethod(Order.PaymentMethod.ONLINE);
+        order.setStatus(OrderStatus.SHIPPED);
+        return order;
+    }
+}
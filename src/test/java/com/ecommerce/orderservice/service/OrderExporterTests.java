@@ -0,0 +1,89 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderExporterTests {
+    private final OrderExporter exporter = new OrderExporter(new ObjectMapper().registerModule(new JavaTimeModule()));
+
+    @Test
+    void writesOneDocumentPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exporter.export(Stream.of(order(1), order(2)), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(written).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("{\"id\":\"order-1\"");
+    }
+
+    @Test
+    void exportsMillionOrdersWithFlatMemoryAndClosesTheCursor() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Order> cursor = LongStream.range(0, 1_000_000).mapToObj(OrderExporterTests::order)
+                .onClose(() -> closed.set(true));
+        LineCountingStream out = new LineCountingStream();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+        long written = exporter.export(cursor, out);
+
+        System.gc();
+        long heapAfter = memory.getHeapMemoryUsage().getUsed();
+        assertThat(written).isEqualTo(1_000_000);
+        assertThat(out.lines).isEqualTo(1_000_000);
+        assertThat(closed).isTrue();
+        // A materialized list of a million orders would retain hundreds of megabytes.
+        assertThat(heapAfter - heapBefore).isLessThan(32L * 1024 * 1024);
+    }
+
+    private static Order order(long n) {
+        Order order = new Order();
+        order.setId("order-" + n);
+        order.setUserId("user-1");
+        order.setPaymentMethod(Order.PaymentMethod.ONLINE);
+        order.setTotalAmount(BigDecimal.valueOf(n));
+        Order.OrderItem item = new Order.OrderItem();
+        item.setProductId(n % 100);
+        item.setQuantity(1);
+        order.setItems(List.of(item));
+        return order;
+    }
+
+    private static class LineCountingStream extends OutputStream {
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
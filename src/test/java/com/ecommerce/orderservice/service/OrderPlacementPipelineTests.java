@@ -0,0 +1,179 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.exception.PlacementBacklogFullException;
+import com.ecommerce.orderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Load test of the accept path: the downstream half of placement is stubbed with a fixed delay standing in for the
+ * product and payment services, and accept latency is measured while that delay grows. Also covers the backlog
+ * bound and the retries of a failing placement.
+ */
+@Slf4j
+class OrderPlacementPipelineTests {
+    private static final int WORKERS = 8;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final OrderService orderService = mock(OrderService.class);
+    private ThreadPoolTaskExecutor executor;
+    // Released once a queued placement has finished, after it has given its backlog permit back.
+    private final Semaphore finished = new Semaphore(0);
+
+    @AfterEach
+    void stop() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void acceptLatencyStaysFlatAsDownstreamLatencyGrows() throws Exception {
+        int orders = 64;
+        long[] p99Micros = new long[3];
+        int[] downstreamMillis = {0, 50, 200};
+        for (int run = 0; run < downstreamMillis.length; run++) {
+            long delay = downstreamMillis[run];
+            CountDownLatch placed = new CountDownLatch(orders);
+            stubAccept();
+            doAnswer(invocation -> {
+                Thread.sleep(delay);
+                placed.countDown();
+                return null;
+            }).when(orderService).completePlacement(any());
+            OrderPlacementPipeline pipeline = pipeline(orders);
+
+            long[] latencies = new long[orders];
+            for (int i = 0; i < orders; i++) {
+                long start = System.nanoTime();
+                Order accepted = pipeline.accept(newOrder(), "user-1");
+                latencies[i] = System.nanoTime() - start;
+                assertThat(accepted.getStatus()).isEqualTo(OrderStatus.ACCEPTED);
+            }
+            assertThat(placed.await(30, TimeUnit.SECONDS)).isTrue();
+
+            Arrays.sort(latencies);
+            p99Micros[run] = latencies[(int) (orders * 0.99) - 1] / 1000;
+            log.info("Downstream {} ms: accept p50 {} µs, p99 {} µs", delay, latencies[orders / 2] / 1000, p99Micros[run]);
+            executor.shutdown();
+        }
+
+        // A synchronous placement would take at least the downstream delay; accepting stays far below it.
+        for (long p99 : p99Micros) {
+            assertThat(p99).isLessThan(50_000);
+        }
+    }
+
+    @Test
+    void refusesOrdersOnceTheBacklogIsFullAndAcceptsAgainAfterDraining() throws Exception {
+        stubAccept();
+        CountDownLatch downstream = new CountDownLatch(1);
+        CountDownLatch placed = new CountDownLatch(WORKERS + 2);
+        doAnswer(invocation -> {
+            downstream.await();
+            placed.countDown();
+            return null;
+        }).when(orderService).completePlacement(any());
+        OrderPlacementPipeline pipeline = pipeline(2);
+
+        for (int i = 0; i < WORKERS + 2; i++) {
+            pipeline.accept(newOrder(), "user-1");
+        }
+        assertThatThrownBy(() -> pipeline.accept(newOrder(), "user-1"))
+                .isInstanceOf(PlacementBacklogFullException.class);
+        verify(orderService, times(WORKERS + 2)).acceptOrder(any(), anyString());
+
+        downstream.countDown();
+        assertThat(placed.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(finished.tryAcquire(WORKERS + 2, 10, TimeUnit.SECONDS)).isTrue();
+        assertThat(pipeline.accept(newOrder(), "user-1").getStatus()).isEqualTo(OrderStatus.ACCEPTED);
+    }
+
+    @Test
+    void retriesAFailingPlacementAndThenFailsTheOrder() throws Exception {
+        stubAccept();
+        doThrow(new IllegalStateException("circuit open")).when(orderService).completePlacement(any());
+
+        Order accepted = pipeline(2).accept(newOrder(), "user-1");
+
+        assertThat(finished.tryAcquire(10, TimeUnit.SECONDS)).isTrue();
+        verify(orderService, times(MAX_ATTEMPTS)).completePlacement(accepted);
+        verify(orderService).failPlacement(eq(accepted), anyString());
+    }
+
+    @Test
+    void placementThatRecoversWithinItsAttemptsIsNotFailed() throws Exception {
+        stubAccept();
+        doThrow(new IllegalStateException("connection reset")).doNothing()
+                .when(orderService).completePlacement(any());
+
+        Order accepted = pipeline(2).accept(newOrder(), "user-1");
+
+        assertThat(finished.tryAcquire(10, TimeUnit.SECONDS)).isTrue();
+        verify(orderService, times(2)).completePlacement(accepted);
+        verify(orderService, never()).failPlacement(any(), anyString());
+    }
+
+    private OrderPlacementPipeline pipeline(int queueCapacity) {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(WORKERS);
+        executor.setMaxPoolSize(WORKERS);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setTaskDecorator(task -> () -> {
+            try {
+                task.run();
+            } finally {
+                finished.release();
+            }
+        });
+        executor.initialize();
+        return new OrderPlacementPipeline(orderService, mock(OrderRepository.class), mock(ShardLeaseService.class),
+                executor, new SimpleMeterRegistry(), WORKERS, queueCapacity, Duration.ofMinutes(2), 200,
+                Duration.ofSeconds(50), MAX_ATTEMPTS, Duration.ofMillis(10));
+    }
+
+    private void stubAccept() {
+        when(orderService.acceptOrder(any(), anyString())).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(new ObjectId().toHexString());
+            order.setStatus(OrderStatus.ACCEPTED);
+            return order;
+        });
+    }
+
+    private static Order newOrder() {
+        Order.OrderItem item = new Order.OrderItem();
+        item.setProductId(1L);
+        item.setQuantity(1);
+        Order order = new Order();
+        order.setItems(List.of(item));
+        order.setPaymentMethod(Order.PaymentMethod.ONLINE);
+        return order;
+    }
+}
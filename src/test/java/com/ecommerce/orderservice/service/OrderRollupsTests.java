@@ -0,0 +1,200 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.entity.StatusRollup;
+import com.ecommerce.orderservice.entity.UserOrderSummary;
+import com.ecommerce.orderservice.repository.OrderRepository;
+import com.ecommerce.orderservice.repository.OrderRepositoryImpl;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives orders through random lifecycles while recording every step incrementally, then checks that a rebuild
+ * from {@code orders} arrives at the same rollups. Needs a real Mongo: set ORDER_TEST_MONGO_URI to run it.
+ */
+@Slf4j
+@EnabledIfEnvironmentVariable(named = "ORDER_TEST_MONGO_URI", matches = ".+")
+class OrderRollupsTests {
+    private static final int USERS = 20;
+    private static final int ORDERS = 500;
+    private static final List<OrderStatus> INITIAL =
+            List.of(OrderStatus.ACCEPTED, OrderStatus.PENDING, OrderStatus.PLACED);
+
+    private final Random random = new Random(42);
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private OrderRollups rollups;
+    private OrderRollupRebuilder rebuilder;
+
+    @BeforeEach
+    void connect() {
+        client = MongoClients.create(System.getenv("ORDER_TEST_MONGO_URI"));
+        mongoTemplate = new MongoTemplate(client, "order_service_rollup_test");
+        OrderRepository orderRepository = new MongoRepositoryFactory(mongoTemplate)
+                .getRepository(OrderRepository.class, RepositoryFragments.just(new OrderRepositoryImpl(mongoTemplate)));
+        rollups = new OrderRollups(mongoTemplate, new SimpleMeterRegistry());
+        rebuilder = new OrderRollupRebuilder(orderRepository, rollups, new ShardLeaseService(mongoTemplate),
+                new SimpleAsyncTaskExecutor("rollup-test-"), new SimpleMeterRegistry(), 8, 100, 20,
+                Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void rebuildMatchesIncrementalRollups() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = newOrder();
+            mongoTemplate.insert(order);
+            rollups.recordCreated(order);
+            orders.add(order);
+        }
+
+        // Half of the transitions are recorded one by one, the rest in batches as the event handlers do.
+        for (int step = 0; step < 6; step++) {
+            Map<String, OrderStatus> from = new HashMap<>();
+            List<Order> batch = new ArrayList<>();
+            for (Order order : orders) {
+                OrderStatus[] targets = Arrays.stream(OrderStatus.values())
+                        .filter(order.getStatus()::canTransitionTo)
+                        .toArray(OrderStatus[]::new);
+                if (targets.length == 0 || random.nextInt(3) == 0) {
+                    continue;
+                }
+                OrderStatus previous = order.getStatus();
+                move(order, targets[random.nextInt(targets.length)]);
+                if (random.nextBoolean()) {
+                    rollups.recordTransition(order, previous);
+                } else {
+                    from.put(order.getId(), previous);
+                    batch.add(order);
+                }
+            }
+            rollups.recordTransitions(batch, from);
+        }
+        Map<String, Map<OrderStatus, Totals>> incrementalUsers = users();
+        Map<LocalDateTime, Map<OrderStatus, Long>> incrementalBuckets = buckets();
+        assertThat(incrementalUsers).hasSize(USERS);
+
+        // A lost increment on each side, for the rebuild to correct.
+        mongoTemplate.remove(new Query(Criteria.where("_id").is("user-0")), UserOrderSummary.class);
+        mongoTemplate.updateFirst(new Query(), new Update().inc("counts.PLACED", 5), StatusRollup.class);
+        // A user and an hour whose orders are all gone, for the rebuild to remove.
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is("user-gone")),
+                new Update().inc("byStatus.PLACED.count", 1), UserOrderSummary.class);
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(LocalDateTime.now().minusYears(1)
+                .truncatedTo(ChronoUnit.HOURS))), new Update().inc("counts.PLACED", 1), StatusRollup.class);
+
+        // Some orders archived, others copied to the archive but not yet removed, as in the middle of a batch.
+        for (Order order : orders.subList(0, 100)) {
+            mongoTemplate.save(order, "orders_archive");
+            if (order.getId().hashCode() % 2 == 0) {
+                mongoTemplate.remove(order);
+            }
+        }
+
+        long start = System.nanoTime();
+        assertThat(rebuilder.rebuild()).isEqualTo(ORDERS);
+        log.info("Rebuilt rollups of {} orders in {} ms", ORDERS, (System.nanoTime() - start) / 1_000_000);
+
+        assertThat(users()).isEqualTo(incrementalUsers);
+        assertThat(buckets()).isEqualTo(incrementalBuckets);
+        assertThat(rollups.findUserSummary("user-1").getByStatus()).isNotEmpty();
+    }
+
+    private Order newOrder() {
+        LocalDateTime createdAt = LocalDateTime.now().minusMinutes(random.nextInt(3 * 24 * 60))
+                .truncatedTo(ChronoUnit.SECONDS);
+        Order order = new Order();
+        order.setId(new ObjectId(Date.from(createdAt.atZone(ZoneId.systemDefault()).toInstant())).toHexString());
+        order.setUserId("user-" + random.nextInt(USERS));
+        order.setPaymentMethod(Order.PaymentMethod.ONLINE);
+        order.setCreatedAt(createdAt);
+        order.setStatus(INITIAL.get(random.nextInt(INITIAL.size())));
+        if (order.getStatus() != OrderStatus.ACCEPTED) {
+            order.setTotalAmount(price());
+        }
+        return order;
+    }
+
+    private void move(Order order, OrderStatus to) {
+        if (order.getStatus() == OrderStatus.ACCEPTED && to != OrderStatus.FAILED) {
+            order.setTotalAmount(price()); // Placement prices the order as it leaves ACCEPTED
+        }
+        order.setStatus(to);
+        mongoTemplate.save(order);
+    }
+
+    private BigDecimal price() {
+        return BigDecimal.valueOf(100 + random.nextInt(100_000), 2);
+    }
+
+    /**
+     * Rollups as stored, without the zero entries increments leave behind and with spend at a canonical scale.
+     */
+    private Map<String, Map<OrderStatus, Totals>> users() {
+        Map<String, Map<OrderStatus, Totals>> users = new HashMap<>();
+        for (UserOrderSummary summary : mongoTemplate.findAll(UserOrderSummary.class)) {
+            Map<OrderStatus, Totals> byStatus = new EnumMap<>(OrderStatus.class);
+            summary.getByStatus().forEach((status, totals) -> {
+                if (totals.getCount() != 0 || totals.getSpend().signum() != 0) {
+                    byStatus.put(status, new Totals(totals.getCount(), totals.getSpend().stripTrailingZeros()));
+                }
+            });
+            users.put(summary.getUserId(), byStatus);
+        }
+        return users;
+    }
+
+    private Map<LocalDateTime, Map<OrderStatus, Long>> buckets() {
+        Map<LocalDateTime, Map<OrderStatus, Long>> buckets = new HashMap<>();
+        for (StatusRollup rollup : mongoTemplate.findAll(StatusRollup.class)) {
+            Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+            rollup.getCounts().forEach((status, count) -> {
+                if (count != 0) {
+                    counts.put(status, count);
+                }
+            });
+            buckets.put(rollup.getBucket(), counts);
+        }
+        return buckets;
+    }
+
+    private record Totals(long count, BigDecimal spend) {
+    }
+}
@@ -0,0 +1,235 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.entity.OutboxEvent;
+import com.ecommerce.orderservice.repository.OutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the relay against embedded Kafka and an in-memory outbox, crashing it between Kafka's ack and the outbox
+ * delete or giving it outbox ids that disagree with the order of the changes, and checks what a consumer ends up
+ * seeing.
+ */
+@EmbeddedKafka(partitions = 3, topics = {"ORDER_EVENTS", OutboxRelayTests.LEASE_TEST_TOPIC,
+        OutboxRelayTests.ORDERING_TEST_TOPIC})
+class OutboxRelayTests {
+    static final String LEASE_TEST_TOPIC = "OUTBOX_LEASE_TEST";
+    static final String ORDERING_TEST_TOPIC = "OUTBOX_ORDERING_TEST";
+    private static final int BATCH_SIZE = 50;
+    private static final int ORDERS = 10;
+    private static final int EVENTS_PER_ORDER = 30;
+
+    private final TreeMap<String, OutboxEvent> outbox = new TreeMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final AtomicInteger deletesUntilCrash = new AtomicInteger(Integer.MAX_VALUE);
+    private OutboxRepository outboxRepository;
+    private ShardLeaseService leases;
+    private DefaultKafkaProducerFactory<String, Object> producerFactory;
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @BeforeEach
+    void setUp(EmbeddedKafkaBroker broker) {
+        outboxRepository = mock(OutboxRepository.class);
+        when(outboxRepository.findByOrderByIdAsc(any(Pageable.class))).thenAnswer(invocation -> {
+            Pageable page = invocation.getArgument(0);
+            synchronized (outbox) {
+                return outbox.values().stream().limit(page.getPageSize()).toList();
+            }
+        });
+        when(outboxRepository.findByOrderIdInOrderByVersionAscIdAsc(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> orderIds = invocation.getArgument(0);
+            synchronized (outbox) {
+                return outbox.values().stream()
+                        .filter(event -> orderIds.contains(event.getOrderId()))
+                        .sorted(Comparator.comparingLong(OutboxEvent::getVersion).thenComparing(OutboxEvent::getId))
+                        .toList();
+            }
+        });
+        doAnswer(invocation -> {
+            if (deletesUntilCrash.getAndDecrement() <= 0) {
+                throw new IllegalStateException("crashed before the outbox delete");
+            }
+            Iterable<String> ids = invocation.getArgument(0);
+            synchronized (outbox) {
+                ids.forEach(outbox::remove);
+            }
+            return null;
+        }).when(outboxRepository).deleteAllById(anyIterable());
+
+        leases = mock(ShardLeaseService.class);
+        when(leases.tryAcquire(anyString(), any())).thenReturn(true);
+
+        Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        producerFactory = new DefaultKafkaProducerFactory<>(props, new StringSerializer(), new JsonSerializer<>());
+        kafkaTemplate = new KafkaTemplate<>(producerFactory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        producerFactory.destroy();
+    }
+
+    @Test
+    void losesNothingAndKeepsOrderAcrossCrashes(EmbeddedKafkaBroker broker) {
+        appendEvents(0, EVENTS_PER_ORDER / 2);
+
+        // First relay acks two batches, then dies after Kafka acked the third but before deleting it.
+        deletesUntilCrash.set(2);
+        assertThatThrownBy(() -> relay().relay()).isInstanceOf(IllegalStateException.class);
+
+        // Orders keep changing while the relay is down.
+        appendEvents(EVENTS_PER_ORDER / 2, EVENTS_PER_ORDER);
+
+        deletesUntilCrash.set(Integer.MAX_VALUE);
+        relay().relay();
+        assertThat(outbox).isEmpty();
+
+        List<ConsumerRecord<String, String>> records = consumeAll(broker, OrderEventOutbox.ORDER_EVENTS_TOPIC,
+                ORDERS * EVENTS_PER_ORDER);
+        Map<String, List<String>> byOrder = new HashMap<>();
+        Map<String, ConsumerRecord<String, String>> firstByEventId = new LinkedHashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            String eventId = new String(record.headers().lastHeader(OutboxRelay.EVENT_ID_HEADER).value(),
+                    StandardCharsets.UTF_8);
+            if (firstByEventId.putIfAbsent(eventId, record) == null) {
+                byOrder.computeIfAbsent(record.key(), ignored -> new ArrayList<>()).add(eventId);
+            }
+        }
+
+        // No loss: every event was published. Duplicates: only the batch caught by the crash, and they carry
+        // the same event id, so deduplicating on it restores exactly one copy per event.
+        assertThat(firstByEventId).hasSize(ORDERS * EVENTS_PER_ORDER);
+        assertThat(records.size() - firstByEventId.size()).isBetween(0, BATCH_SIZE);
+        assertThat(byOrder).hasSize(ORDERS);
+        // Outbox ids grow with every append, so each order's events must arrive with ascending ids.
+        byOrder.values().forEach(eventIds -> assertThat(eventIds).hasSize(EVENTS_PER_ORDER).isSorted());
+    }
+
+    @Test
+    void renewsTheLeaseBeforeEveryBatchAndStopsOnceItIsLost() {
+        appendEvents(0, EVENTS_PER_ORDER);
+        // Kept off ORDER_EVENTS, which the other test reads back in full.
+        outbox.values().forEach(event -> event.setTopic(LEASE_TEST_TOPIC));
+        when(leases.tryAcquire(anyString(), any())).thenReturn(true, true, true, false);
+
+        relay().relay();
+
+        verify(leases, times(4)).tryAcquire(anyString(), any());
+        assertThat(outbox).hasSize(ORDERS * EVENTS_PER_ORDER - 3 * BATCH_SIZE);
+    }
+
+    @Test
+    void publishesEachOrdersEventsByVersionWhenIdsDisagree(EmbeddedKafkaBroker broker) {
+        // Two replicas take turns changing every order. Replica B's clock is behind, so every change it makes gets
+        // a smaller outbox id than all of replica A's, although each follows the change before it.
+        Map<String, Long> versions = new HashMap<>();
+        synchronized (outbox) {
+            for (int version = 1; version <= EVENTS_PER_ORDER; version++) {
+                boolean replicaA = version % 2 == 1;
+                for (int order = 0; order < ORDERS; order++) {
+                    OutboxEvent event = new OutboxEvent();
+                    event.setId(String.format("%s%023x", replicaA ? "f" : "0", nextId.getAndIncrement()));
+                    event.setTopic(ORDERING_TEST_TOPIC);
+                    event.setOrderId("order-" + order);
+                    event.setStatus(OrderStatus.PLACED);
+                    event.setVersion(version);
+                    outbox.put(event.getId(), event);
+                    versions.put(event.getId(), (long) version);
+                }
+            }
+        }
+
+        relay().relay();
+        assertThat(outbox).isEmpty();
+
+        Map<String, List<Long>> byOrder = new HashMap<>();
+        List<ConsumerRecord<String, String>> records = consumeAll(broker, ORDERING_TEST_TOPIC,
+                ORDERS * EVENTS_PER_ORDER);
+        for (ConsumerRecord<String, String> record : records) {
+            String eventId = new String(record.headers().lastHeader(OutboxRelay.EVENT_ID_HEADER).value(),
+                    StandardCharsets.UTF_8);
+            byOrder.computeIfAbsent(record.key(), ignored -> new ArrayList<>()).add(versions.get(eventId));
+        }
+        assertThat(byOrder).hasSize(ORDERS);
+        byOrder.values().forEach(orderVersions -> assertThat(orderVersions).hasSize(EVENTS_PER_ORDER).isSorted());
+    }
+
+    private OutboxRelay relay() {
+        return new OutboxRelay(outboxRepository, kafkaTemplate, leases, new SimpleMeterRegistry(),
+                BATCH_SIZE, 100, Duration.ofSeconds(10), Duration.ofSeconds(10));
+    }
+
+    private void appendEvents(int fromSequence, int toSequence) {
+        synchronized (outbox) {
+            for (int sequence = fromSequence; sequence < toSequence; sequence++) {
+                for (int order = 0; order < ORDERS; order++) {
+                    OutboxEvent event = new OutboxEvent();
+                    event.setId(String.format("%024x", nextId.getAndIncrement()));
+                    event.setTopic(OrderEventOutbox.ORDER_EVENTS_TOPIC);
+                    event.setOrderId("order-" + order);
+                    event.setStatus(OrderStatus.PLACED);
+                    event.setVersion(sequence + 1);
+                    outbox.put(event.getId(), event);
+                }
+            }
+        }
+    }
+
+    private List<ConsumerRecord<String, String>> consumeAll(EmbeddedKafkaBroker broker, String topic, int expected) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("outbox-relay-test-" + topic, "false", broker);
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, topic);
+            KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(10), expected)
+                    .forEach(records::add);
+            // Pick up any trailing duplicates as well.
+            KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(2)).forEach(records::add);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,171 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.entity.Order;
+import com.ecommerce.orderservice.entity.OrderStatus;
+import com.ecommerce.orderservice.repository.OrderRepository;
+import com.ecommerce.orderservice.repository.OrderRepositoryImpl;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Shard partitioning of the expiry query and sweeps by competing replicas. Needs a real Mongo: set
+ * ORDER_TEST_MONGO_URI to run it.
+ */
+@EnabledIfEnvironmentVariable(named = "ORDER_TEST_MONGO_URI", matches = ".+")
+class PaymentLinkExpiryServiceTests {
+    private static final int SHARDS = 4;
+    private static final int EXPIRED = 300;
+
+    private final ExecutorService threads = Executors.newFixedThreadPool(8);
+    private final StockReservationService stockReservationService = mock(StockReservationService.class);
+    private final OrderEventOutbox orderEventOutbox = mock(OrderEventOutbox.class);
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private OrderRepository orderRepository;
+    private final List<String> expiredIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        client = MongoClients.create(System.getenv("ORDER_TEST_MONGO_URI"));
+        mongoTemplate = new MongoTemplate(client, "order_service_expiry_test");
+        orderRepository = new MongoRepositoryFactory(mongoTemplate)
+                .getRepository(OrderRepository.class, RepositoryFragments.just(new OrderRepositoryImpl(mongoTemplate)));
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<Order> expired = new ArrayList<>();
+        for (int i = 0; i < EXPIRED; i++) {
+            // Milliseconds apart, as the shard is the creation time modulo the shard count.
+            expired.add(order(now.minusMinutes(10).minusNanos(i * 7_000_000L), OrderStatus.PENDING,
+                    Order.PaymentMethod.ONLINE));
+        }
+        mongoTemplate.insert(expired, Order.class);
+        expired.forEach(order -> expiredIds.add(order.getId()));
+        // Not expired: link still valid, paid, or cash on delivery.
+        mongoTemplate.insert(List.of(
+                order(now, OrderStatus.PENDING, Order.PaymentMethod.ONLINE),
+                order(now.minusMinutes(10), OrderStatus.PLACED, Order.PaymentMethod.ONLINE),
+                order(now.minusMinutes(10), OrderStatus.PLACED, Order.PaymentMethod.COD)), Order.class);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        threads.shutdownNow();
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void shardsPartitionTheExpiredOrders() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(5);
+        List<String> swept = new ArrayList<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            List<Order> orders = orderRepository.findExpiredPaymentLinks(cutoff, shard, SHARDS, EXPIRED);
+            // Spread roughly evenly: no shard left idle while another carries the backlog.
+            assertThat(orders).hasSizeBetween(EXPIRED / SHARDS / 2, EXPIRED / SHARDS * 2);
+            orders.forEach(order -> swept.add(order.getId()));
+        }
+        assertThat(swept).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(expiredIds);
+    }
+
+    @Test
+    void competingReplicasSplitTheShardsAndExpireEachOrderOnce() {
+        PaymentLinkExpiryService replicaA = service(SHARDS / 2);
+        PaymentLinkExpiryService replicaB = service(SHARDS / 2);
+
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(replicaA::checkPaymentLinkExpiry),
+                CompletableFuture.runAsync(replicaB::checkPaymentLinkExpiry)).join();
+
+        assertThat(statuses()).containsOnly(OrderStatus.FAILED);
+        assertThat(releasedIds()).containsExactlyInAnyOrderElementsOf(expiredIds);
+    }
+
+    @Test
+    void replicaSweepsAtMostItsShareOfTheShards() {
+        service(SHARDS / 2).checkPaymentLinkExpiry();
+
+        // The other half of the shards is left to the next replica.
+        assertThat(releasedIds()).isNotEmpty().hasSizeLessThan(EXPIRED);
+        assertThat(statuses()).contains(OrderStatus.PENDING, OrderStatus.FAILED);
+    }
+
+    @Test
+    void failedOrderDoesNotStopTheSweep() {
+        String broken = expiredIds.get(EXPIRED / 2);
+        doThrow(new IllegalStateException("outbox unavailable")).when(orderEventOutbox)
+                .append(eq(broken), any(), anyLong());
+
+        service(SHARDS).checkPaymentLinkExpiry();
+
+        List<String> others = new ArrayList<>(expiredIds);
+        others.remove(broken);
+        assertThat(releasedIds()).containsExactlyInAnyOrderElementsOf(others);
+    }
+
+    private PaymentLinkExpiryService service(int maxShardsPerRun) {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        return new PaymentLinkExpiryService(orderRepository, stockReservationService, orderEventOutbox,
+                mock(OrderDetailsCache.class), mock(OrderRollups.class), transactionTemplate,
+                new ShardLeaseService(mongoTemplate), new ConcurrentTaskExecutor(threads), new SimpleMeterRegistry(),
+                new OrderStageTimers(new SimpleMeterRegistry()), Duration.ofMinutes(5), SHARDS, maxShardsPerRun, 200,
+                10, Duration.ofSeconds(50));
+    }
+
+    private List<String> releasedIds() {
+        ArgumentCaptor<Order> released = ArgumentCaptor.forClass(Order.class);
+        verify(stockReservationService, atLeast(0)).releaseAfterTransition(released.capture());
+        return released.getAllValues().stream().map(Order::getId).toList();
+    }
+
+    private List<OrderStatus> statuses() {
+        return expiredIds.stream().map(id -> mongoTemplate.findById(id, Order.class).getStatus()).toList();
+    }
+
+    private static Order order(LocalDateTime createdAt, OrderStatus status, Order.PaymentMethod paymentMethod) {
+        Order.OrderItem item = new Order.OrderItem();
+        item.setProductId(1L);
+        item.setQuantity(1);
+        Order order = new Order();
+        order.setUserId("user-1");
+        order.setItems(List.of(item));
+        order.setTotalAmount(BigDecimal.TEN);
+        order.setPaymentMethod(paymentMethod);
+        order.setStatus(status);
+        order.setCreatedAt(createdAt);
+        return order;
+    }
+}
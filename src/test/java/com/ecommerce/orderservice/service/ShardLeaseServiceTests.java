@@ -0,0 +1,73 @@
+package com.ecommerce.orderservice.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two replicas competing for leases on a shared clock. Needs a real Mongo: set ORDER_TEST_MONGO_URI to run it.
+ */
+@EnabledIfEnvironmentVariable(named = "ORDER_TEST_MONGO_URI", matches = ".+")
+class ShardLeaseServiceTests {
+    private static final Duration TTL = Duration.ofSeconds(50);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private ShardLeaseService replicaA;
+    private ShardLeaseService replicaB;
+
+    @BeforeEach
+    void connect() {
+        client = MongoClients.create(System.getenv("ORDER_TEST_MONGO_URI"));
+        mongoTemplate = new MongoTemplate(client, "order_service_lease_test");
+        replicaA = new ShardLeaseService(mongoTemplate, clock);
+        replicaB = new ShardLeaseService(mongoTemplate, clock);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Test
+    void onlyOneReplicaHoldsALease() {
+        assertThat(replicaA.tryAcquire("shard-0", TTL)).isTrue();
+        assertThat(replicaB.tryAcquire("shard-0", TTL)).isFalse();
+
+        // Leases are independent of each other.
+        assertThat(replicaB.tryAcquire("shard-1", TTL)).isTrue();
+        assertThat(replicaA.tryAcquire("shard-1", TTL)).isFalse();
+    }
+
+    @Test
+    void holderRenewsFromNow() {
+        assertThat(replicaA.tryAcquire("shard-0", TTL)).isTrue();
+
+        clock.advance(TTL.minusSeconds(10));
+        assertThat(replicaA.tryAcquire("shard-0", TTL)).isTrue();
+
+        // Past the first expiry but within the renewed one.
+        clock.advance(Duration.ofSeconds(20));
+        assertThat(replicaB.tryAcquire("shard-0", TTL)).isFalse();
+    }
+
+    @Test
+    void expiredLeaseGoesToTheNextReplica() {
+        assertThat(replicaA.tryAcquire("shard-0", TTL)).isTrue();
+
+        clock.advance(TTL.plusSeconds(1));
+        assertThat(replicaB.tryAcquire("shard-0", TTL)).isTrue();
+        assertThat(replicaA.tryAcquire("shard-0", TTL)).isFalse();
+    }
+}
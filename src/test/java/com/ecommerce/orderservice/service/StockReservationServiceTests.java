@@ -0,0 +1,193 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.client.DownstreamPolicy;
+import com.ecommerce.orderservice.client.RestProductGateway;
+import com.ecommerce.orderservice.exception.InsufficientStockException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockReservationServiceTests {
+    private static final Pattern ADJUSTMENT_PATH = Pattern.compile("/api/products/(\\d+)/stock/adjustments");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Long, Integer> stock = new HashMap<>();
+    private final Set<String> appliedKeys = new HashSet<>();
+    private HttpServer productService;
+    private ExecutorService productServiceThreads;
+    private ExecutorService gatewayThreads;
+    private StockReservationService reservations;
+
+    @BeforeEach
+    void startStubProductService() throws IOException {
+        productService = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        productService.createContext("/api/products/", this::handleAdjustment);
+        productServiceThreads = Executors.newFixedThreadPool(16);
+        productService.setExecutor(productServiceThreads);
+        productService.start();
+
+        TokenService tokenService = mock(TokenService.class);
+        when(tokenService.getServiceToken()).thenReturn("Bearer test");
+        gatewayThreads = Executors.newFixedThreadPool(8);
+        ConcurrentTaskExecutor executor = new ConcurrentTaskExecutor(gatewayThreads);
+        String url = "http://localhost:" + productService.getAddress().getPort() + "/api/products";
+        DownstreamPolicy policy = new DownstreamPolicy(RetryTemplate.builder().maxAttempts(1).build(),
+                Bulkhead.ofDefaults("product"), CircuitBreaker.ofDefaults("product"));
+        RestProductGateway gateway = new RestProductGateway(new RestTemplate(), tokenService, executor, policy, url, false);
+        reservations = new StockReservationService(gateway, executor);
+    }
+
+    @AfterEach
+    void stop() {
+        gatewayThreads.shutdownNow();
+        productService.stop(0);
+        productServiceThreads.shutdownNow();
+    }
+
+    @Test
+    void concurrentOrdersForOneProductNeverOversell() throws Exception {
+        stock.put(1L, 50);
+        int orders = 200;
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(32);
+        for (int i = 0; i < orders; i++) {
+            String orderId = "order-" + i;
+            clients.execute(() -> {
+                try {
+                    start.await();
+                    reservations.reserve(orderId, Map.of(1L, 1));
+                    succeeded.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    rejected.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        clients.shutdown();
+        assertThat(clients.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(succeeded.get()).isEqualTo(50);
+        assertThat(rejected.get()).isEqualTo(orders - 50);
+        assertThat(stockOf(1L)).isZero();
+    }
+
+    @Test
+    void failedLineReleasesLinesAlreadyReserved() {
+        stock.put(1L, 10);
+        stock.put(2L, 10);
+        stock.put(3L, 1);
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(1L, 2);
+        quantities.put(2L, 3);
+        quantities.put(3L, 5);
+
+        assertThatThrownBy(() -> reservations.reserve("order-1", quantities))
+                .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(stockOf(1L)).isEqualTo(10);
+        assertThat(stockOf(2L)).isEqualTo(10);
+        assertThat(stockOf(3L)).isEqualTo(1);
+    }
+
+    @Test
+    void releaseIsAppliedOncePerOrder() {
+        stock.put(1L, 10);
+        reservations.reserve("order-1", Map.of(1L, 4));
+        reservations.release("order-1", Map.of(1L, 4));
+        reservations.release("order-1", Map.of(1L, 4));
+
+        assertThat(stockOf(1L)).isEqualTo(10);
+    }
+
+    @Test
+    void newAttemptTakesStockAgainAfterAnEarlierAttemptReleasedIt() {
+        stock.put(1L, 10);
+        reservations.reserve("order-1", 1, Map.of(1L, 4));
+        reservations.release("order-1", 1, Map.of(1L, 4));
+
+        // The retry of a placement whose first attempt gave its stock back.
+        reservations.reserve("order-1", 2, Map.of(1L, 4));
+        assertThat(stockOf(1L)).isEqualTo(6);
+
+        // Cancelling releases the attempt that holds the stock, once.
+        reservations.release("order-1", 2, Map.of(1L, 4));
+        reservations.release("order-1", 2, Map.of(1L, 4));
+        assertThat(stockOf(1L)).isEqualTo(10);
+    }
+
+    private int stockOf(Long productId) {
+        synchronized (stock) {
+            return stock.get(productId);
+        }
+    }
+
+    /**
+     * Mirrors the product service contract: deltas are applied atomically, never below zero, once per key.
+     */
+    private void handleAdjustment(HttpExchange exchange) throws IOException {
+        Matcher matcher = ADJUSTMENT_PATH.matcher(exchange.getRequestURI().getPath());
+        if (!"POST".equals(exchange.getRequestMethod()) || !matcher.matches()) {
+            respond(exchange, 404);
+            return;
+        }
+        Long productId = Long.valueOf(matcher.group(1));
+        String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+        JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+        int delta = body.get("delta").asInt();
+
+        int status;
+        synchronized (stock) {
+            Integer current = stock.get(productId);
+            if (current == null) {
+                status = 404;
+            } else if (appliedKeys.contains(key)) {
+                status = 204;
+            } else if (current + delta < 0) {
+                status = 409;
+            } else {
+                stock.put(productId, current + delta);
+                appliedKeys.add(key);
+                status = 204;
+            }
+        }
+        respond(exchange, status);
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+}
@@ -0,0 +1,106 @@
+package com.ecommerce.orderservice.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenServiceTests {
+    private static final long EXPIRES_IN_SECONDS = 300;
+
+    private HttpServer tokenEndpoint;
+    private ExecutorService tokenEndpointThreads;
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    private TokenService tokenService;
+
+    @BeforeEach
+    void startStubTokenEndpoint() throws Exception {
+        tokenEndpoint = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        tokenEndpoint.createContext("/token", exchange -> {
+            int issued = tokenRequests.incrementAndGet();
+            byte[] body = ("{\"access_token\":\"token-" + issued + "\",\"expires_in\":" + EXPIRES_IN_SECONDS + "}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        tokenEndpointThreads = Executors.newFixedThreadPool(4);
+        tokenEndpoint.setExecutor(tokenEndpointThreads);
+        tokenEndpoint.start();
+
+        String tokenUrl = "http://localhost:" + tokenEndpoint.getAddress().getPort() + "/token";
+        tokenService = new TokenService(new RestTemplate(), new SimpleMeterRegistry(), tokenUrl,
+                "order-service-client", "secret", Duration.ofSeconds(30), 0.1, clock);
+    }
+
+    @AfterEach
+    void stopStubTokenEndpoint() {
+        tokenService.shutdown();
+        tokenEndpoint.stop(0);
+        tokenEndpointThreads.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneTokenFetchPerTtlWindow() throws Exception {
+        List<String> firstWindow = callConcurrently(64);
+        assertThat(tokenRequests.get()).isEqualTo(1);
+        assertThat(firstWindow).containsOnly("Bearer token-1");
+
+        clock.advance(Duration.ofSeconds(EXPIRES_IN_SECONDS + 1));
+
+        List<String> secondWindow = callConcurrently(64);
+        assertThat(tokenRequests.get()).isEqualTo(2);
+        assertThat(secondWindow).containsOnly("Bearer token-2");
+    }
+
+    @Test
+    void refreshesInBackgroundBeforeExpiry() throws Exception {
+        assertThat(tokenService.getServiceToken()).isEqualTo("Bearer token-1");
+
+        // Past the latest possible refresh point (expiry minus skew) but before expiry: the cached token is still served.
+        clock.advance(Duration.ofSeconds(EXPIRES_IN_SECONDS - 29));
+        assertThat(tokenService.getServiceToken()).isEqualTo("Bearer token-1");
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!"Bearer token-2".equals(tokenService.getServiceToken()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(tokenService.getServiceToken()).isEqualTo("Bearer token-2");
+        assertThat(tokenRequests.get()).isEqualTo(2);
+    }
+
+    private List<String> callConcurrently(int callers) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Callable<String>> calls = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                calls.add(tokenService::getServiceToken);
+            }
+            List<String> tokens = new ArrayList<>();
+            for (Future<String> future : executor.invokeAll(calls)) {
+                tokens.add(future.get());
+            }
+            return tokens;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}